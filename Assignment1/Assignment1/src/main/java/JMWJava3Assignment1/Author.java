@@ -2,12 +2,12 @@ package JMWJava3Assignment1;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 
 /**
  * Represents an author in the library system.
  * An author has a unique ID, first name, last name, and a list of books.
  * Provides methods to retrieve and modify author details.
+ * Names are shared through NameTable, so authors with the same first or last name hold one copy of it.
  * @author john-michael woodrow
  */
 public class Author {
@@ -24,8 +24,8 @@ public class Author {
      */
     public Author(int authorId, String firstName, String lastName) {
         this.authorId = authorId;
-        this.firstName = firstName;
-        this.lastName = lastName;
+        this.firstName = NameTable.dedup(firstName);
+        this.lastName = NameTable.dedup(lastName);
         this.bookList = new ArrayList<>();
     }
 
@@ -58,7 +58,7 @@ public class Author {
      * @param firstName The new first name.
      */
     public void setFirstName(String firstName) {
-        this.firstName = firstName;
+        this.firstName = NameTable.dedup(firstName);
     }
 
     /**
@@ -74,7 +74,16 @@ public class Author {
      * @param lastName The new last name.
      */
     public void setLastName(String lastName) {
-        this.lastName = lastName;
+        this.lastName = NameTable.dedup(lastName);
+    }
+
+    /**
+     * Replaces the book list with an empty one with room for a given number of books,
+     * before the library links the author again.
+     * @param expectedBooks The number of books the author will be linked to.
+     */
+    void resetBooks(int expectedBooks) {
+        bookList = new ArrayList<>(expectedBooks);
     }
 
     /**
@@ -116,6 +125,6 @@ public class Author {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(authorId);
+        return Integer.hashCode(authorId);
     }
 }
@@ -0,0 +1,72 @@
+package JMWJava3Assignment1;
+
+import java.util.Arrays;
+
+/**
+ * Holds rows of the authorISBN table: links between authors and books.
+ * The rows are kept in two parallel arrays, author IDs as plain ints and ISBNs as strings,
+ * instead of one object per row, so a large table costs two array slots per link.
+ * @author john-michael woodrow
+ */
+public class AuthorLinks {
+    private int[] authorIds;
+    private String[] isbns;
+    private int size;
+
+    /**
+     * Creates an empty set of links.
+     */
+    public AuthorLinks() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty set of links with room for a number of rows before it has to grow.
+     * @param expectedSize The number of rows expected.
+     */
+    public AuthorLinks(int expectedSize) {
+        authorIds = new int[Math.max(1, expectedSize)];
+        isbns = new String[Math.max(1, expectedSize)];
+    }
+
+    /**
+     * Adds a link between an author and a book.
+     * @param authorId The ID of the author.
+     * @param isbn The ISBN of the book.
+     */
+    public void add(int authorId, String isbn) {
+        if (size == authorIds.length) {
+            authorIds = Arrays.copyOf(authorIds, size * 2);
+            isbns = Arrays.copyOf(isbns, size * 2);
+        }
+        authorIds[size] = authorId;
+        isbns[size] = isbn;
+        size++;
+    }
+
+    /**
+     * Retrieves the number of links.
+     * @return The number of links.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retrieves the author ID of a link.
+     * @param index The position of the link.
+     * @return The author ID.
+     */
+    public int getAuthorId(int index) {
+        return authorIds[index];
+    }
+
+    /**
+     * Retrieves the ISBN of a link.
+     * @param index The position of the link.
+     * @return The ISBN of the book.
+     */
+    public String getIsbn(int index) {
+        return isbns[index];
+    }
+}
@@ -8,13 +8,24 @@ import java.util.Objects;
  * Represents a book in the library system.
  * A book has an ISBN, title, edition number, copyright information, and a list of authors.
  * Provides methods to retrieve and modify book details.
+ * The ISBN and copyright are stored compactly when they are plain numbers, and turned back into text when they are read.
  * @author john-michael woodrow
  */
 public class Book {
-    private String isbn;
+    // The longest ISBN that packs into a long, and the packed value of an ISBN that does not.
+    private static final int MAX_PACKED_ISBN_LENGTH = 17;
+    static final long NOT_PACKED = -1;
+    private static final short NO_YEAR = -1;
+
+    // ISBNs of digits only are packed as their value times 32 plus their length, so leading zeros survive.
+    // Any other ISBN is kept as text.
+    private final long isbnCode;
+    private final String isbnText;
     private String title;
     private int editionNumber;
-    private String copyright;
+    // A copyright that is a plain year is kept as a short. Anything else is kept as text.
+    private short copyrightYear;
+    private String copyrightText;
     private List<Author> authorList;
 
     /**
@@ -25,10 +36,11 @@ public class Book {
      * @param copyright The copyright information.
      */
     public Book(String isbn, String title, int editionNumber, String copyright) {
-        this.isbn = isbn;
+        this.isbnCode = packIsbn(isbn);
+        this.isbnText = isbnCode == NOT_PACKED ? isbn : null;
         this.title = title;
         this.editionNumber = editionNumber;
-        this.copyright = copyright;
+        setCopyRight(copyright);
         this.authorList = new ArrayList<>();
     }
 
@@ -37,7 +49,57 @@ public class Book {
      * @return The ISBN of the book.
      */
     public String getIsbn() {
-        return isbn;
+        return isbnCode == NOT_PACKED ? isbnText : unpackIsbn(isbnCode);
+    }
+
+    /**
+     * Retrieves the packed form of the ISBN.
+     * @return The packed ISBN, or NOT_PACKED if the ISBN is kept as text.
+     */
+    long getIsbnCode() {
+        return isbnCode;
+    }
+
+    /**
+     * Retrieves the ISBN when it could not be packed.
+     * @return The ISBN, or null if it is packed.
+     */
+    String getIsbnText() {
+        return isbnText;
+    }
+
+    /**
+     * Packs an ISBN of up to MAX_PACKED_ISBN_LENGTH digits into a long.
+     * @param isbn The ISBN.
+     * @return The packed ISBN, or NOT_PACKED if it is null, empty, too long or has anything but digits.
+     */
+    static long packIsbn(String isbn) {
+        if (isbn == null || isbn.isEmpty() || isbn.length() > MAX_PACKED_ISBN_LENGTH) {
+            return NOT_PACKED;
+        }
+        long value = 0;
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c < '0' || c > '9') {
+                return NOT_PACKED;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value * 32 + isbn.length();
+    }
+
+    /**
+     * Rebuilds the text of a packed ISBN, including its leading zeros.
+     */
+    private static String unpackIsbn(long code) {
+        int length = (int) (code % 32);
+        long value = code / 32;
+        char[] digits = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return new String(digits);
     }
 
     /**
@@ -77,7 +139,7 @@ public class Book {
      * @return The copyright details.
      */
     public String getCopyright() {
-        return copyright;
+        return copyrightYear != NO_YEAR ? Short.toString(copyrightYear) : copyrightText;
     }
 
     /**
@@ -85,7 +147,42 @@ public class Book {
      * @param copyright
      */
     public void setCopyRight(String copyright) {
-        this.copyright = this.copyright;
+        short year = parseYear(copyright);
+        this.copyrightYear = year;
+        this.copyrightText = year == NO_YEAR ? NameTable.dedup(copyright) : null;
+    }
+
+    /**
+     * Parses a copyright that is a year written without leading zeros, so it can be written back unchanged.
+     * @return The year, or NO_YEAR if the copyright is anything else.
+     */
+    private static short parseYear(String copyright) {
+        if (copyright == null || copyright.isEmpty() || copyright.length() > 4 || copyright.charAt(0) == '0') {
+            return NO_YEAR;
+        }
+        int year = 0;
+        for (int i = 0; i < copyright.length(); i++) {
+            char c = copyright.charAt(i);
+            if (c < '0' || c > '9') {
+                return NO_YEAR;
+            }
+            year = year * 10 + (c - '0');
+        }
+        return (short) year;
+    }
+
+    /**
+     * Replaces the author list with an empty one, before the library links the book again.
+     */
+    void resetAuthors() {
+        authorList = new ArrayList<>();
+    }
+
+    /**
+     * Shrinks the author list's storage to the number of authors it holds.
+     */
+    void trimAuthors() {
+        authorList = new ArrayList<>(authorList);
     }
 
     /**
@@ -118,7 +215,7 @@ public class Book {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Book book = (Book) o;
-        return Objects.equals(isbn, book.isbn);
+        return isbnCode == book.isbnCode && Objects.equals(isbnText, book.isbnText);
     }
 
     /**
@@ -127,6 +224,6 @@ public class Book {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(isbn);
+        return isbnText != null ? isbnText.hashCode() : Long.hashCode(isbnCode);
     }
 }
@@ -1,8 +1,19 @@
 package JMWJava3Assignment1;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
 import java.util.Scanner;
 
@@ -14,9 +25,27 @@ import java.util.Scanner;
  */
 
 public class BookApplication {
+    private static final Path SNAPSHOT_FILE = Paths.get("catalog.snapshot");
+    private static final int WRITE_BEHIND_CAPACITY = 10_000;
+    private static final long SHUTDOWN_FLUSH_TIMEOUT_MILLIS = 30_000;
+    // Off while other users' changes are followed, since the change poller already keeps the library up to date.
+    private static boolean reloadAfterEdits = true;
+
     /**
      * Main method to run the application.
      * Initializes database connection and provides an interactive menu.
+     * Pass --lazy-links to skip linking books and authors at startup; they are then linked the first time a full list is printed.
+     * Pass --parallel-startup to read the titles, authors and authorISBN tables at the same time on separate connections.
+     * Pass --snapshot to start from catalog.snapshot when it exists. The database is then connected in the background,
+     * and the catalog is reloaded if it changed since the snapshot was taken. Without a snapshot file,
+     * one is written after the catalog has been loaded from the database.
+     * Pass --write-behind to apply changes in memory at once and write them to the database in the background.
+     * Waiting changes are written when the application exits. With --snapshot, write-behind starts once the database is connected.
+     * Pass --script followed by a file name, or by - for standard input, to run the commands in that script instead of
+     * showing the menu. See ScriptRunner for the commands. Scripts always load the catalog from the database.
+     * Pass --follow-changes to apply changes that other users make to the database while the menu is running,
+     * without reloading the whole catalog. With --snapshot, following starts once the database is connected.
+     * With --write-behind or --follow-changes, menu edits are applied in memory without reloading the catalog afterwards.
      */
     public static void main(String[] args) {
         try (Scanner scanner = new Scanner(System.in)) {
@@ -31,8 +60,69 @@ public class BookApplication {
                 dbPassword = config.getProperty("db.password");
             }
 
-            BookDatabaseManager dbManager = new BookDatabaseManager(dbUrl, dbUsername, dbPassword);
-            Library library = new Library(dbManager);
+            List<String> options = Arrays.asList(args);
+            int scriptOption = options.indexOf("--script");
+            if (scriptOption >= 0 && scriptOption + 1 >= options.size()) {
+                System.err.println("--script needs a file name, or - to read the script from standard input");
+                return;
+            }
+            String script = scriptOption >= 0 ? options.get(scriptOption + 1) : null;
+            boolean useSnapshot = options.contains("--snapshot") && script == null;
+            boolean followChanges = options.contains("--follow-changes") && script == null;
+            reloadAfterEdits = !followChanges;
+            long loadStart = System.nanoTime();
+            Library library = null;
+            SnapshotRefresher refresher = null;
+            ChangePoller poller = null;
+
+            if (useSnapshot && Files.exists(SNAPSHOT_FILE)) {
+                try {
+                    CatalogSnapshot snapshot = CatalogSnapshot.read(SNAPSHOT_FILE);
+                    library = new Library(null, snapshot.getBooks(), snapshot.getAuthors(), snapshot.getLinks());
+                    refresher = new SnapshotRefresher(dbUrl, dbUsername, dbPassword, SNAPSHOT_FILE, snapshot.getStamp());
+                    refresher.start();
+                } catch (IOException e) {
+                    System.err.println("Error reading catalog snapshot, loading from the database: " + e.getMessage());
+                }
+            }
+
+            if (library == null) {
+                BookDatabaseManager dbManager = new BookDatabaseManager(dbUrl, dbUsername, dbPassword);
+                long changeId = followChanges ? dbManager.getLatestChangeId() : 0;
+                String stamp = useSnapshot ? dbManager.getCatalogStamp() : null;
+                if (options.contains("--parallel-startup")) {
+                    library = ParallelLibraryLoader.load(dbUrl, dbUsername, dbPassword, dbManager);
+                } else {
+                    library = new Library(dbManager, useSnapshot || !options.contains("--lazy-links"));
+                }
+                if (useSnapshot) {
+                    try {
+                        CatalogSnapshot.write(SNAPSHOT_FILE, stamp, library);
+                    } catch (IOException e) {
+                        System.err.println("Error writing catalog snapshot: " + e.getMessage());
+                    }
+                }
+                if (followChanges) {
+                    poller = new ChangePoller(dbUrl, dbUsername, dbPassword, library, changeId);
+                    poller.start();
+                }
+            }
+            System.out.println("Library loaded in " + (System.nanoTime() - loadStart) / 1_000_000 + " ms");
+
+            WriteBehindQueue writeBehind = null;
+            if (options.contains("--write-behind")) {
+                WriteBehindQueue queue = new WriteBehindQueue(dbUrl, dbUsername, dbPassword, WRITE_BEHIND_CAPACITY);
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> queue.close(SHUTDOWN_FLUSH_TIMEOUT_MILLIS)));
+                writeBehind = queue;
+                if (library.getDatabaseManager() != null) {
+                    library.enableWriteBehind(queue);
+                }
+            }
+
+            if (script != null) {
+                runScript(script, library);
+                return;
+            }
 
             // Code to test author states
             // library.getAuthors().get(0).setFirstName("Paul");
@@ -40,6 +130,24 @@ public class BookApplication {
 
             boolean running = true;
             do {
+                if (refresher != null) {
+                    refresher.applyPending(library);
+                    if (followChanges && poller == null && library.getDatabaseManager() != null) {
+                        poller = new ChangePoller(dbUrl, dbUsername, dbPassword, library, refresher.getLatestChangeId());
+                        poller.start();
+                    }
+                }
+                if (poller != null) {
+                    int applied = poller.applyPending(library);
+                    if (applied > 0) {
+                        System.out.println(applied + " books and authors were changed by other users and have been updated.");
+                    }
+                }
+                // A library started from a snapshot only switches to write-behind once it is connected,
+                // so the reload from the database cannot overwrite changes that are still waiting to be written.
+                if (writeBehind != null && library.getWriteBehind() == null && library.getDatabaseManager() != null) {
+                    library.enableWriteBehind(writeBehind);
+                }
                 System.out.println("\nMenu:");
                 System.out.println("1. Print all books");
                 System.out.println("2. Print all authors");
@@ -49,6 +157,9 @@ public class BookApplication {
                 System.out.println("6. Add a new book");
                 System.out.println("7. Delete a book or author");
                 System.out.println("8. Quit");
+                if (writeBehind != null) {
+                    System.out.println("9. Show write-behind status");
+                }
 
                 int choice = scanner.nextInt();
                 scanner.nextLine();
@@ -60,15 +171,20 @@ public class BookApplication {
                 } else if (choice == 3) {
                     editBookOrAuthor(scanner, library);
                 } else if (choice == 4) {
-                    printBooksForAuthor(scanner, library, dbManager);
+                    printBooksForAuthor(scanner, library, library.getDatabaseManager());
                 } else if (choice == 5) {
-                    printAuthorsForBook(scanner, library, dbManager);
+                    printAuthorsForBook(scanner, library, library.getDatabaseManager());
                 } else if (choice == 6) {
                     addNewBook(scanner, library);
                 } else if (choice == 7) {
                     deleteBookOrAuthor(scanner, library);
                 } else if (choice == 8) {
                     running = false;
+                    if (writeBehind != null) {
+                        printWriteBehindStatus(writeBehind);
+                    }
+                } else if (choice == 9 && writeBehind != null) {
+                    printWriteBehindStatus(writeBehind);
                 } else {
                     System.out.println("Invalid choice. Please try again.");
                 }
@@ -78,6 +194,34 @@ public class BookApplication {
         }
     }
 
+    /**
+     * Runs the commands in a script file, or in standard input if the name is -, against the library.
+     * @param script The script file name, or -.
+     * @param library The library to run the commands against.
+     * @throws IOException if the script cannot be read.
+     */
+    private static void runScript(String script, Library library) throws IOException {
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16));
+        try (BufferedReader in = script.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(script), StandardCharsets.UTF_8)) {
+            new ScriptRunner(library, out).run(in);
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Prints how many changes are waiting to be written, how far behind the database is, and what has been written so far.
+     * @param writeBehind The queue to report on.
+     */
+    private static void printWriteBehindStatus(WriteBehindQueue writeBehind) {
+        System.out.println("Changes waiting: " + writeBehind.getQueueDepth() + ", oldest waiting " + writeBehind.getLagMillis() + " ms");
+        System.out.println("Changes queued: " + writeBehind.getQueuedCount() + ", merged: " + writeBehind.getMergedCount()
+                + ", written: " + writeBehind.getWrittenCount() + ", failed: " + writeBehind.getFailedCount());
+        System.out.println("Batches written: " + writeBehind.getBatchCount() + ", last batch took " + writeBehind.getLastBatchMillis() + " ms");
+    }
+
     /**
      * Loads the database configuration from a properties file.
      * @return A Properties object containing database connection settings.
@@ -111,7 +255,7 @@ public class BookApplication {
      * Prints all authors of a specific book.
      * @param scanner The scanner for user input.
      * @param library The library instance containing existing books and authors.
-     * @param dbManager The database manager for retrieving author associations.
+     * @param dbManager The database manager for retrieving author associations, or null to use the links already in memory.
      */
     private static void printAuthorsForBook(Scanner scanner, Library library, BookDatabaseManager dbManager) {
         System.out.println("Enter the ISBN of the book:");
@@ -124,7 +268,9 @@ public class BookApplication {
         }
 
         try {
-            dbManager.loadAuthorsForBook(book, library);
+            if (dbManager != null) {
+                dbManager.loadAuthorsForBook(book, library);
+            }
             if (book.getAuthors().isEmpty()) {
                 System.out.println("No authors found for this book.");
             } else {
@@ -142,7 +288,7 @@ public class BookApplication {
      * Prints all books by a specific author.
      * @param scanner The scanner for user input.
      * @param library The library instance containing existing books and authors.
-     * @param dbManager The database manager for retrieving book associations.
+     * @param dbManager The database manager for retrieving book associations, or null to use the links already in memory.
      */
     private static void printBooksForAuthor(Scanner scanner, Library library, BookDatabaseManager dbManager) {
         System.out.println("Enter the first name of the author:");
@@ -157,7 +303,9 @@ public class BookApplication {
         }
 
         try {
-            dbManager.loadBooksForAuthor(author, library);
+            if (dbManager != null) {
+                dbManager.loadBooksForAuthor(author, library);
+            }
             if (author.getBooks().isEmpty()) {
                 System.out.println("No books found for this author.");
             } else {
@@ -186,6 +334,18 @@ public class BookApplication {
         }
     }
 
+    /**
+     * Reloads the catalog after a menu edit, to pick up changes other users made in the meantime.
+     * Skipped in write-behind mode, where a reload would wait for the queue to be written first,
+     * and while other users' changes are followed, since they are applied as they happen.
+     * @param library The library instance.
+     */
+    private static void refreshAfterEdit(Library library) {
+        if (reloadAfterEdits && library.getWriteBehind() == null) {
+            library.refreshData();
+        }
+    }
+
     /**
      * Allows the user to edit a book or an author in the library.
      * @param scanner The Scanner object for user input.
@@ -206,7 +366,7 @@ public class BookApplication {
                 if (!newTitle.isEmpty()) {
                     book.setTitle(newTitle);
                     library.updateBook(book);
-                    library.refreshData();
+                    refreshAfterEdit(library);
                     System.out.println("Book updated successfully.");
                 } else {
                     System.out.println("No changes made.");
@@ -234,7 +394,7 @@ public class BookApplication {
                     author.setLastName(newLastName);
                 }
                 library.updateAuthor(author);
-                library.refreshData();
+                refreshAfterEdit(library);
                 System.out.println("Author updated successfully.");
             } else {
                 System.out.println("Author not found.");
@@ -259,7 +419,7 @@ public class BookApplication {
             Book book = library.getBookByIsbn(isbn);
             if (book != null) {
                 library.deleteBook(book);
-                library.refreshData();
+                refreshAfterEdit(library);
                 System.out.println("Book deleted successfully.");
             } else {
                 System.out.println("Book not found.");
@@ -273,7 +433,7 @@ public class BookApplication {
             Author author = library.getAuthorByFullName(firstName, lastName);
             if (author != null) {
                 library.deleteAuthor(author);
-                library.refreshData();
+                refreshAfterEdit(library);
                 System.out.println("Author deleted successfully.");
             } else {
                 System.out.println("Author not found.");
@@ -323,7 +483,7 @@ public class BookApplication {
                 newBook.addAuthor(author);
             }
             library.addBook(newBook);
-            library.refreshData();
+            refreshAfterEdit(library);
             System.out.println("New book added successfully.");
         } catch (Exception e) {
             System.err.println("Error adding new book: " + e.getMessage());
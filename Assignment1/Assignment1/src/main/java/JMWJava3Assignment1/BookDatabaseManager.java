@@ -2,15 +2,32 @@ package JMWJava3Assignment1;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Manages database operations for books and authors in the library system.
  * Provides methods for retrieving, adding, updating, and deleting books and authors from a SQL database.
  * Handles relationships between books and authors.
+ * Every change is also recorded in the catalogChanges table, so other library instances can apply just the changed
+ * books and authors instead of reloading the catalog. The table is created the first time a manager connects.
  * @author john-michael woodrow
  */
 public class BookDatabaseManager {
+    // Identifies the changes made by this process, so its own change poller can skip them.
+    static final String ORIGIN = UUID.randomUUID().toString();
+    // Change records are kept for a day, which is far longer than a change poller ever falls behind.
+    private static final int CHANGE_RETENTION_HOURS = 24;
+    private static final long PRUNE_INTERVAL_MILLIS = 60 * 60 * 1000L;
+    private static volatile boolean changeLogCreated;
+    // When this process last pruned the change log, shared by all of its managers.
+    private static final AtomicLong lastPrune = new AtomicLong();
+
+    // How many server-side prepared statements the MariaDB driver keeps open on each connection.
+    private static final int PREPARED_STATEMENT_CACHE_SIZE = 64;
+
     private final Connection connection;
 
     /**
@@ -21,7 +38,113 @@ public class BookDatabaseManager {
      * @throws SQLException if a database connection error occurs.
      */
     public BookDatabaseManager(String dbUrl, String username, String password) throws SQLException {
-        connection = DriverManager.getConnection(dbUrl, username, password);
+        connection = DriverManager.getConnection(withStatementCache(dbUrl), username, password);
+        if (!changeLogCreated) {
+            createChangeLog();
+        }
+        pruneChangesIfDue();
+    }
+
+    /**
+     * Turns on the MariaDB driver's prepared statement cache for a connection URL.
+     * Each manager keeps one connection for its whole life, so the driver's cache is enough: it keeps the server
+     * handle of the most recently used statements on that connection, so closing a statement does not throw away
+     * its prepare, and it frees them all when the connection closes. Other databases' URLs are left unchanged.
+     */
+    private static String withStatementCache(String dbUrl) {
+        if (!dbUrl.startsWith("jdbc:mariadb:")) {
+            return dbUrl;
+        }
+        String separator = dbUrl.contains("?") ? "&" : "?";
+        return dbUrl + separator + "useServerPrepStmts=true&cachePrepStmts=true&prepStmtCacheSize=" + PREPARED_STATEMENT_CACHE_SIZE;
+    }
+
+    /**
+     * Creates the catalogChanges table if it does not exist yet.
+     * It is created here rather than in the middle of a change, because creating a table ends any open transaction.
+     */
+    private void createChangeLog() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS catalogChanges ("
+                    + "changeID BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "entity VARCHAR(6) NOT NULL, "
+                    + "entityKey VARCHAR(20) NOT NULL, "
+                    + "origin CHAR(36) NOT NULL, "
+                    + "changedAt TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+        }
+        changeLogCreated = true;
+    }
+
+    /**
+     * Records that a book or author was changed. Runs on the same connection as the change, so inside a transaction
+     * the record is committed or rolled back with it.
+     * @param entity CatalogChange.BOOK or CatalogChange.AUTHOR.
+     * @param key The ISBN of the book or the ID of the author.
+     */
+    private void logChange(String entity, String key) throws SQLException {
+        String query = "INSERT INTO catalogChanges (entity, entityKey, origin) VALUES (?, ?, ?)";
+        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setString(1, entity);
+            stmt.setString(2, key);
+            stmt.setString(3, ORIGIN);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Closes the database connection.
+     */
+    public void close() {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing database connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Checks whether the connection to the database still works.
+     * @return true if the connection is open and answers within a few seconds.
+     */
+    public boolean isConnected() {
+        try {
+            return connection.isValid(5);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * A unit of database work that runs inside a transaction.
+     */
+    public interface Transaction {
+        /**
+         * Runs the work.
+         * @throws SQLException if a database access error occurs.
+         */
+        void run() throws SQLException;
+    }
+
+    /**
+     * Runs work in one transaction, committing it if the work succeeds and rolling it back if it fails.
+     * @param work The work to run.
+     * @throws SQLException if the work or the commit fails.
+     */
+    public void runInTransaction(Transaction work) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            work.run();
+            connection.commit();
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackError) {
+                e.addSuppressed(rollbackError);
+            }
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
     }
 
     /**
@@ -71,6 +194,7 @@ public class BookDatabaseManager {
             stmt.executeUpdate();
             addBookAuthors(book);
         }
+        logChange(CatalogChange.BOOK, book.getIsbn());
     }
 
     /**
@@ -84,11 +208,13 @@ public class BookDatabaseManager {
             stmt.setString(1, author.getFirstName());
             stmt.setString(2, author.getLastName());
             stmt.executeUpdate();
-            ResultSet keys = stmt.getGeneratedKeys();
-            if (keys.next()) {
-                author.setAuthorId(keys.getInt(1));
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    author.setAuthorId(keys.getInt(1));
+                }
             }
         }
+        logChange(CatalogChange.AUTHOR, String.valueOf(author.getAuthorId()));
     }
 
     /**
@@ -108,6 +234,64 @@ public class BookDatabaseManager {
         }
     }
 
+    /**
+     * Links a book to an author in the database, unless they are already linked.
+     * @param book The book to link.
+     * @param author The author to link.
+     * @return true if the link was added, false if it already existed.
+     * @throws SQLException if a database access error occurs.
+     */
+    public boolean addBookAuthor(Book book, Author author) throws SQLException {
+        String query = "INSERT INTO authorISBN (authorID, isbn) SELECT ?, ? FROM DUAL "
+                + "WHERE NOT EXISTS (SELECT 1 FROM authorISBN WHERE authorID = ? AND isbn = ?)";
+        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setInt(1, author.getAuthorId());
+            stmt.setString(2, book.getIsbn());
+            stmt.setInt(3, author.getAuthorId());
+            stmt.setString(4, book.getIsbn());
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
+            logChange(CatalogChange.BOOK, book.getIsbn());
+            return true;
+        }
+    }
+
+    /**
+     * Retrieves a stamp that changes whenever the titles, authors or authorISBN tables change.
+     * It is built from CHECKSUM TABLE, which reads the tables on the server without sending any rows.
+     * @return The catalog stamp.
+     * @throws SQLException if a database access error occurs.
+     */
+    public String getCatalogStamp() throws SQLException {
+        StringBuilder stamp = new StringBuilder();
+        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery("CHECKSUM TABLE titles, authors, authorISBN")) {
+            while (rs.next()) {
+                if (stamp.length() > 0) {
+                    stamp.append(',');
+                }
+                stamp.append(rs.getString(2));
+            }
+        }
+        return stamp.toString();
+    }
+
+    /**
+     * Retrieves every row of the authorISBN table in one query.
+     * @return All author-book links.
+     * @throws SQLException if a database access error occurs.
+     */
+    public AuthorLinks getAllRelationships() throws SQLException {
+        String query = "SELECT authorID, isbn FROM authorISBN";
+        AuthorLinks links = new AuthorLinks();
+        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(query)) {
+            while (rs.next()) {
+                links.add(rs.getInt(1), rs.getString(2));
+            }
+        }
+        return links;
+    }
+
     /**
      * Returns all authors of a specific book.
      */
@@ -115,18 +299,13 @@ public class BookDatabaseManager {
         String query = "SELECT ai.authorID FROM authorISBN ai WHERE ai.isbn = ?";
         try (PreparedStatement stmt = connection.prepareStatement(query)) {
             stmt.setString(1, book.getIsbn());
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                library.getAuthors().stream()
-                        .filter(a -> {
-                            try {
-                                return a.getAuthorId() == rs.getInt("authorID");
-                            } catch (SQLException e) {
-                                throw new RuntimeException(e);
-                            }
-                        })
-                        .findFirst()
-                        .ifPresent(book::addAuthor);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Author author = library.getAuthorById(rs.getInt("authorID"));
+                    if (author != null) {
+                        book.addAuthor(author);
+                    }
+                }
             }
         }
     }
@@ -138,18 +317,13 @@ public class BookDatabaseManager {
         String query = "SELECT ai.isbn FROM authorISBN ai WHERE ai.authorID = ?";
         try (PreparedStatement stmt = connection.prepareStatement(query)) {
             stmt.setInt(1, author.getAuthorId());
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                library.getBooks().stream()
-                        .filter(b -> {
-                            try {
-                                return b.getIsbn().equals(rs.getString("isbn"));
-                            } catch (SQLException e) {
-                                throw new RuntimeException(e);
-                            }
-                        })
-                        .findFirst()
-                        .ifPresent(author::addBook);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Book book = library.getBookByIsbn(rs.getString("isbn"));
+                    if (book != null) {
+                        author.addBook(book);
+                    }
+                }
             }
         }
     }
@@ -168,6 +342,7 @@ public class BookDatabaseManager {
             stmt.setString(4, book.getIsbn());
             stmt.executeUpdate();
         }
+        logChange(CatalogChange.BOOK, book.getIsbn());
     }
 
     /**
@@ -183,6 +358,7 @@ public class BookDatabaseManager {
             stmt.setInt(3, author.getAuthorId());
             stmt.executeUpdate();
         }
+        logChange(CatalogChange.AUTHOR, String.valueOf(author.getAuthorId()));
     }
 
     /**
@@ -193,16 +369,17 @@ public class BookDatabaseManager {
      */
     public void deleteBook(Book book) throws SQLException {
         String deleteAuthorIsbnQuery = "DELETE FROM authorISBN WHERE isbn = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(deleteAuthorIsbnQuery)) {
-            stmt.setString(1, book.getIsbn());
-            stmt.executeUpdate();
+        try (PreparedStatement deleteLinks = connection.prepareStatement(deleteAuthorIsbnQuery)) {
+            deleteLinks.setString(1, book.getIsbn());
+            deleteLinks.executeUpdate();
         }
 
         String deleteBookQuery = "DELETE FROM titles WHERE isbn = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(deleteBookQuery)) {
-            stmt.setString(1, book.getIsbn());
-            stmt.executeUpdate();
+        try (PreparedStatement deleteTitle = connection.prepareStatement(deleteBookQuery)) {
+            deleteTitle.setString(1, book.getIsbn());
+            deleteTitle.executeUpdate();
         }
+        logChange(CatalogChange.BOOK, book.getIsbn());
     }
 
     /**
@@ -216,5 +393,131 @@ public class BookDatabaseManager {
             stmt.setInt(1, author.getAuthorId());
             stmt.executeUpdate();
         }
+        logChange(CatalogChange.AUTHOR, String.valueOf(author.getAuthorId()));
+    }
+
+    /**
+     * Retrieves the ID of the most recent change, so a library loaded now can ask for the changes made after it.
+     * @return The latest change ID, or 0 if no change has been recorded.
+     * @throws SQLException if a database access error occurs.
+     */
+    public long getLatestChangeId() throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(changeID), 0) FROM catalogChanges")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Retrieves the changes recorded after a change ID, oldest first. Uses the primary key index,
+     * so the cost depends on the number of changes returned, not on the size of the table.
+     * @param afterId The change ID to start after.
+     * @param limit The maximum number of changes to return.
+     * @return The changes.
+     * @throws SQLException if a database access error occurs.
+     */
+    public List<CatalogChange> getChangesAfter(long afterId, int limit) throws SQLException {
+        String query = "SELECT changeID, entity, entityKey, origin FROM catalogChanges WHERE changeID > ? ORDER BY changeID LIMIT ?";
+        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setLong(1, afterId);
+            stmt.setInt(2, limit);
+            List<CatalogChange> changes = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    changes.add(new CatalogChange(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4)));
+                }
+            }
+            return changes;
+        }
+    }
+
+    /**
+     * Deletes the change records older than a number of hours. The age is worked out with the database's clock,
+     * the same clock that stamped the records.
+     * @param retentionHours How many hours of records to keep.
+     * @return The number of records deleted.
+     * @throws SQLException if a database access error occurs.
+     */
+    public int pruneChanges(int retentionHours) throws SQLException {
+        String query = "DELETE FROM catalogChanges WHERE changedAt < TIMESTAMPADD(HOUR, -?, CURRENT_TIMESTAMP)";
+        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setInt(1, retentionHours);
+            return stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Deletes the change records older than CHANGE_RETENTION_HOURS, at most once every PRUNE_INTERVAL_MILLIS per process.
+     * Every process that writes to the catalog calls this when it connects, and a change poller calls it as it polls,
+     * so the table does not grow without bound. A failed prune is reported and tried again later.
+     */
+    public void pruneChangesIfDue() {
+        long now = System.currentTimeMillis();
+        long last = lastPrune.get();
+        if (now - last < PRUNE_INTERVAL_MILLIS || !lastPrune.compareAndSet(last, now)) {
+            return;
+        }
+        try {
+            pruneChanges(CHANGE_RETENTION_HOURS);
+        } catch (SQLException e) {
+            lastPrune.set(last);
+            System.err.println("Error pruning catalog changes: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves a book by its ISBN, without its authors.
+     * @param isbn The ISBN.
+     * @return The book, or null if there is none.
+     * @throws SQLException if a database access error occurs.
+     */
+    public Book getBook(String isbn) throws SQLException {
+        String query = "SELECT isbn, title, editionNumber, copyright FROM titles WHERE isbn = ?";
+        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setString(1, isbn);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? new Book(rs.getString(1), rs.getString(2), rs.getInt(3), rs.getString(4)) : null;
+            }
+        }
+    }
+
+    /**
+     * Retrieves an author by ID, without their books.
+     * @param authorId The author ID.
+     * @return The author, or null if there is none.
+     * @throws SQLException if a database access error occurs.
+     */
+    public Author getAuthor(int authorId) throws SQLException {
+        String query = "SELECT authorID, firstName, lastName FROM authors WHERE authorID = ?";
+        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setInt(1, authorId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? new Author(rs.getInt(1), rs.getString(2), rs.getString(3)) : null;
+            }
+        }
+    }
+
+    /**
+     * Retrieves the IDs of a book's authors.
+     * @param isbn The ISBN of the book.
+     * @return The author IDs.
+     * @throws SQLException if a database access error occurs.
+     */
+    public int[] getAuthorIdsForBook(String isbn) throws SQLException {
+        String query = "SELECT authorID FROM authorISBN WHERE isbn = ?";
+        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setString(1, isbn);
+            int[] ids = new int[4];
+            int count = 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (count == ids.length) {
+                        ids = Arrays.copyOf(ids, count * 2);
+                    }
+                    ids[count++] = rs.getInt(1);
+                }
+            }
+            return Arrays.copyOf(ids, count);
+        }
     }
 }
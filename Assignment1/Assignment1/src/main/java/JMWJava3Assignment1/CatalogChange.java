@@ -0,0 +1,64 @@
+package JMWJava3Assignment1;
+
+/**
+ * A row of the catalogChanges table: a record that a book or author was added, changed or deleted.
+ * It only says which book or author changed; the current state is read from the titles, authors and authorISBN tables.
+ * @author john-michael woodrow
+ */
+public class CatalogChange {
+    /** The entity of a change to a book or to its author links. The key is the ISBN. */
+    public static final String BOOK = "book";
+    /** The entity of a change to an author. The key is the author ID. */
+    public static final String AUTHOR = "author";
+
+    private final long changeId;
+    private final String entity;
+    private final String entityKey;
+    private final String origin;
+
+    /**
+     * Creates a change record.
+     * @param changeId The ID of the change. Later changes have higher IDs.
+     * @param entity BOOK or AUTHOR.
+     * @param entityKey The ISBN of the book or the ID of the author.
+     * @param origin The process that made the change.
+     */
+    public CatalogChange(long changeId, String entity, String entityKey, String origin) {
+        this.changeId = changeId;
+        this.entity = entity;
+        this.entityKey = entityKey;
+        this.origin = origin;
+    }
+
+    /**
+     * Retrieves the ID of the change.
+     * @return The change ID.
+     */
+    public long getChangeId() {
+        return changeId;
+    }
+
+    /**
+     * Retrieves what kind of thing changed.
+     * @return BOOK or AUTHOR.
+     */
+    public String getEntity() {
+        return entity;
+    }
+
+    /**
+     * Retrieves which book or author changed.
+     * @return The ISBN of the book or the ID of the author.
+     */
+    public String getEntityKey() {
+        return entityKey;
+    }
+
+    /**
+     * Retrieves the process that made the change.
+     * @return The origin ID.
+     */
+    public String getOrigin() {
+        return origin;
+    }
+}
@@ -0,0 +1,183 @@
+package JMWJava3Assignment1;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A binary copy of the whole catalog kept on disk, so the console app can start without reading the database.
+ * The file holds a header with the catalog stamp it was taken at, then every book, every author,
+ * and every link as a pair of author ID and book position. It is read back through a memory-mapped file.
+ * @author john-michael woodrow
+ */
+public class CatalogSnapshot {
+    private static final int MAGIC = 0x4A4D5753;
+    private static final int FORMAT_VERSION = 1;
+
+    private final String stamp;
+    private final List<Book> books;
+    private final List<Author> authors;
+    private final AuthorLinks links;
+
+    private CatalogSnapshot(String stamp, List<Book> books, List<Author> authors, AuthorLinks links) {
+        this.stamp = stamp;
+        this.books = books;
+        this.authors = authors;
+        this.links = links;
+    }
+
+    /**
+     * Retrieves the catalog stamp the snapshot was taken at.
+     * @return The stamp from BookDatabaseManager.getCatalogStamp().
+     */
+    public String getStamp() {
+        return stamp;
+    }
+
+    /**
+     * Retrieves the books in the snapshot. Their author lists are empty until they are given to a Library.
+     * @return A list of books.
+     */
+    public List<Book> getBooks() {
+        return books;
+    }
+
+    /**
+     * Retrieves the authors in the snapshot.
+     * @return A list of authors.
+     */
+    public List<Author> getAuthors() {
+        return authors;
+    }
+
+    /**
+     * Retrieves the links between authors and books in the snapshot.
+     * @return The author-book links.
+     */
+    public AuthorLinks getLinks() {
+        return links;
+    }
+
+    /**
+     * Writes the library's catalog to a file. The file is written next to the target and then moved into place,
+     * so a reader never sees a half-written snapshot.
+     * @param file The snapshot file.
+     * @param stamp The catalog stamp taken before the library was loaded.
+     * @param library The library to save.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(Path file, String stamp, Library library) throws IOException {
+        List<Book> books = library.getBooks();
+        List<Author> authors = library.getAuthors();
+        Map<Book, Integer> positions = new HashMap<>();
+        int linkCount = 0;
+        for (Book book : books) {
+            positions.put(book, positions.size());
+            linkCount += book.getAuthors().size();
+        }
+
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            writeString(out, stamp);
+            out.writeInt(books.size());
+            out.writeInt(authors.size());
+            out.writeInt(linkCount);
+
+            for (Book book : books) {
+                writeString(out, book.getIsbn());
+                writeString(out, book.getTitle());
+                out.writeInt(book.getEditionNumber());
+                writeString(out, book.getCopyright());
+            }
+            for (Author author : authors) {
+                out.writeInt(author.getAuthorId());
+                writeString(out, author.getFirstName());
+                writeString(out, author.getLastName());
+            }
+            for (Book book : books) {
+                int position = positions.get(book);
+                for (Author author : book.getAuthors()) {
+                    out.writeInt(author.getAuthorId());
+                    out.writeInt(position);
+                }
+            }
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot through a memory-mapped file.
+     * @param file The snapshot file.
+     * @return The snapshot.
+     * @throws IOException if the file cannot be read or is not a snapshot of this format.
+     */
+    public static CatalogSnapshot read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                throw new IOException("Not a catalog snapshot: " + file);
+            }
+            String stamp = readString(buffer);
+            int bookCount = buffer.getInt();
+            int authorCount = buffer.getInt();
+            int linkCount = buffer.getInt();
+
+            List<Book> books = new ArrayList<>(bookCount);
+            for (int i = 0; i < bookCount; i++) {
+                books.add(new Book(readString(buffer), readString(buffer), buffer.getInt(), readString(buffer)));
+            }
+            List<Author> authors = new ArrayList<>(authorCount);
+            for (int i = 0; i < authorCount; i++) {
+                authors.add(new Author(buffer.getInt(), readString(buffer), readString(buffer)));
+            }
+            AuthorLinks links = new AuthorLinks(linkCount);
+            for (int i = 0; i < linkCount; i++) {
+                int authorId = buffer.getInt();
+                links.add(authorId, books.get(buffer.getInt()).getIsbn());
+            }
+            return new CatalogSnapshot(stamp, books, authors, links);
+        } catch (RuntimeException e) {
+            // A truncated or corrupt file shows up as a buffer underflow or a bad position.
+            throw new IOException("Corrupt catalog snapshot: " + file, e);
+        }
+    }
+
+    /**
+     * Writes a string as its UTF-8 length followed by its bytes. Null is written as length -1.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string written by writeString.
+     */
+    private static String readString(MappedByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,237 @@
+package JMWJava3Assignment1;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Keeps a library up to date with changes that other library instances make to the database, without reloading the catalog.
+ * A background thread reads the new rows of the catalogChanges table every few seconds on its own connection,
+ * skips the ones made by this process, and reads the current state of each book and author that changed.
+ * The results are handed to the library by applyPending, which the menu loop calls between commands,
+ * so the library is only ever changed on the menu thread. Each refresh costs a few queries per changed book or author,
+ * however large the catalog is.
+ * <p>
+ * Change IDs are handed out when a change is made but become visible when its transaction commits, so a missing ID
+ * may belong to a transaction that is still open. Missing IDs are checked again on later polls until they show up
+ * or GAP_TIMEOUT_MILLIS has passed, after which they are taken to belong to a transaction that was rolled back.
+ * <p>
+ * If the library changes while the thread is reading the database, what it read may already be out of date,
+ * so it is discarded and read again on the next poll. In write-behind mode, nothing is read while local changes
+ * are still waiting to be written, since the database does not show them yet.
+ * @author john-michael woodrow
+ */
+public class ChangePoller {
+    private static final long POLL_INTERVAL_MILLIS = 2000;
+    private static final long GAP_TIMEOUT_MILLIS = 60_000;
+    private static final int MAX_GAPS = 10_000;
+    private static final int PAGE_SIZE = 10_000;
+
+    /**
+     * The state of the changed books and authors, read at one point in time.
+     */
+    private static class Delta {
+        private final int modifications;
+        private final Map<Integer, Author> authors = new LinkedHashMap<>();
+        private final Map<String, Book> books = new LinkedHashMap<>();
+        private final Map<String, int[]> bookAuthors = new HashMap<>();
+
+        private Delta(int modifications) {
+            this.modifications = modifications;
+        }
+    }
+
+    private final String dbUrl;
+    private final String username;
+    private final String password;
+    private final Library library;
+
+    // Used only by the polling thread.
+    private BookDatabaseManager dbManager;
+    private long lastSeenId;
+    // Missing change IDs below lastSeenId, with the time they were first missed.
+    private final TreeMap<Long, Long> gaps = new TreeMap<>();
+
+    // Changed books and authors that have not been read yet. Guarded by this poller.
+    private final Set<String> changedBooks = new LinkedHashSet<>();
+    private final Set<Integer> changedAuthors = new LinkedHashSet<>();
+    private volatile Delta ready;
+
+    /**
+     * Creates a poller for a library.
+     * @param dbUrl The database URL.
+     * @param username The database username.
+     * @param password The database password.
+     * @param library The library to keep up to date.
+     * @param startAfterId The latest change ID at the time the library's catalog was read. Only later changes are applied.
+     */
+    public ChangePoller(String dbUrl, String username, String password, Library library, long startAfterId) {
+        this.dbUrl = dbUrl;
+        this.username = username;
+        this.password = password;
+        this.library = library;
+        this.lastSeenId = startAfterId;
+    }
+
+    /**
+     * Starts polling on a background thread.
+     */
+    public void start() {
+        Thread thread = new Thread(this::pollLoop, "change-poller");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Polls until the application exits. A failed poll closes the connection, and the next poll opens a new one.
+     */
+    private void pollLoop() {
+        while (true) {
+            try {
+                if (dbManager == null) {
+                    dbManager = new BookDatabaseManager(dbUrl, username, password);
+                }
+                readChanges();
+                if (ready == null) {
+                    readDelta();
+                }
+                dbManager.pruneChangesIfDue();
+            } catch (SQLException e) {
+                System.err.println("Error polling for catalog changes: " + e.getMessage());
+                if (dbManager != null) {
+                    dbManager.close();
+                    dbManager = null;
+                }
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads the changes after the last one seen, and the ones that were missing before, and notes which books and authors changed.
+     */
+    private void readChanges() throws SQLException {
+        long now = System.currentTimeMillis();
+        gaps.values().removeIf(firstMissed -> now - firstMissed > GAP_TIMEOUT_MILLIS);
+
+        // Start below the oldest missing ID, so a change that has been committed since the last poll is picked up.
+        long after = gaps.isEmpty() ? lastSeenId : Math.min(lastSeenId, gaps.firstKey() - 1);
+        while (true) {
+            List<CatalogChange> changes = dbManager.getChangesAfter(after, PAGE_SIZE);
+            for (CatalogChange change : changes) {
+                long id = change.getChangeId();
+                if (id <= lastSeenId) {
+                    if (gaps.remove(id) == null) {
+                        continue;
+                    }
+                } else {
+                    for (long missing = Math.max(lastSeenId + 1, id - MAX_GAPS); missing < id; missing++) {
+                        gaps.put(missing, now);
+                    }
+                    lastSeenId = id;
+                }
+                if (!BookDatabaseManager.ORIGIN.equals(change.getOrigin())) {
+                    noteChange(change);
+                }
+            }
+            while (gaps.size() > MAX_GAPS) {
+                gaps.pollFirstEntry();
+            }
+            if (changes.size() < PAGE_SIZE) {
+                return;
+            }
+            after = changes.get(changes.size() - 1).getChangeId();
+        }
+    }
+
+    private synchronized void noteChange(CatalogChange change) {
+        if (CatalogChange.BOOK.equals(change.getEntity())) {
+            changedBooks.add(change.getEntityKey());
+        } else if (CatalogChange.AUTHOR.equals(change.getEntity())) {
+            try {
+                changedAuthors.add(Integer.parseInt(change.getEntityKey()));
+            } catch (NumberFormatException e) {
+                System.err.println("Skipping catalog change " + change.getChangeId() + " with an invalid author ID: " + change.getEntityKey());
+            }
+        }
+    }
+
+    /**
+     * Reads the current state of every changed book and author and hands it to applyPending.
+     * If the reads fail, the books and authors are read again on the next poll.
+     */
+    private void readDelta() throws SQLException {
+        Set<String> books;
+        Set<Integer> authors;
+        synchronized (this) {
+            if (changedBooks.isEmpty() && changedAuthors.isEmpty()) {
+                return;
+            }
+            WriteBehindQueue writeBehind = library.getWriteBehind();
+            if (writeBehind != null && writeBehind.getQueueDepth() > 0) {
+                return;
+            }
+            books = new LinkedHashSet<>(changedBooks);
+            authors = new LinkedHashSet<>(changedAuthors);
+            changedBooks.clear();
+            changedAuthors.clear();
+        }
+
+        Delta delta = new Delta(library.getModificationCount());
+        try {
+            for (int authorId : authors) {
+                delta.authors.put(authorId, dbManager.getAuthor(authorId));
+            }
+            for (String isbn : books) {
+                Book book = dbManager.getBook(isbn);
+                delta.books.put(isbn, book);
+                if (book != null) {
+                    delta.bookAuthors.put(isbn, dbManager.getAuthorIdsForBook(isbn));
+                }
+            }
+        } catch (SQLException e) {
+            requeue(books, authors);
+            throw e;
+        }
+        ready = delta;
+    }
+
+    private synchronized void requeue(Set<String> books, Set<Integer> authors) {
+        changedBooks.addAll(books);
+        changedAuthors.addAll(authors);
+    }
+
+    /**
+     * Applies the changes read by the background thread to the library, authors first so new books find their authors.
+     * If the library changed since the changes were read, they are read again on the next poll instead.
+     * @param library The library to update.
+     * @return The number of books and authors that were brought up to date.
+     */
+    public int applyPending(Library library) {
+        Delta delta = ready;
+        if (delta == null) {
+            return 0;
+        }
+        ready = null;
+        if (delta.modifications != library.getModificationCount()) {
+            requeue(delta.books.keySet(), delta.authors.keySet());
+            return 0;
+        }
+        for (Map.Entry<Integer, Author> entry : delta.authors.entrySet()) {
+            library.applyAuthorChange(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, Book> entry : delta.books.entrySet()) {
+            library.applyBookChange(entry.getKey(), entry.getValue(), delta.bookAuthors.get(entry.getKey()));
+        }
+        return delta.authors.size() + delta.books.size();
+    }
+}
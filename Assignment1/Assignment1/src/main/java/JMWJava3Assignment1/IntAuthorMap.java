@@ -0,0 +1,242 @@
+package JMWJava3Assignment1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A map from author IDs to authors that keeps the IDs as plain ints, so lookups do not box the key.
+ * Entries are stored in insertion order in two parallel arrays, and an open-addressing table of int slots
+ * points into them, so iteration follows the order authors were added, like a LinkedHashMap.
+ * Removed entries leave a gap that is squeezed out the next time the arrays grow.
+ * The map is not thread-safe.
+ * @author john-michael woodrow
+ */
+public class IntAuthorMap {
+    // Table slots hold an entry's position plus one. Zero marks an empty slot and -1 a slot whose entry was removed.
+    private static final int EMPTY = 0;
+    private static final int REMOVED = -1;
+
+    private int[] ids;
+    private Author[] authors;
+    private int[] table;
+    // Entries are appended at this position; gaps left by removals are below it.
+    private int end;
+    private int size;
+    // Slots that are not empty, including removed ones, which still lengthen probes.
+    private int usedSlots;
+
+    /**
+     * Creates an empty map.
+     */
+    public IntAuthorMap() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty map with room for a number of authors before it has to grow.
+     * @param expectedSize The number of authors expected.
+     */
+    public IntAuthorMap(int expectedSize) {
+        int capacity = Math.max(4, expectedSize);
+        ids = new int[capacity];
+        authors = new Author[capacity];
+        table = new int[tableSizeFor(capacity)];
+    }
+
+    /**
+     * Returns a power of two that keeps the table at most half full for the given number of entries.
+     */
+    private static int tableSizeFor(int capacity) {
+        return Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) * 2;
+    }
+
+    /**
+     * Spreads the bits of an ID so that sequential IDs do not land in neighbouring slots.
+     */
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Finds the table slot for an ID.
+     * @return The slot holding the ID, or the negated position minus one of the slot where it would be inserted.
+     */
+    private int findSlot(int id) {
+        int mask = table.length - 1;
+        int slot = hash(id) & mask;
+        int firstRemoved = -1;
+        while (true) {
+            int entry = table[slot];
+            if (entry == EMPTY) {
+                return -(firstRemoved >= 0 ? firstRemoved : slot) - 1;
+            }
+            if (entry == REMOVED) {
+                if (firstRemoved < 0) {
+                    firstRemoved = slot;
+                }
+            } else if (ids[entry - 1] == id) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Retrieves the author with an ID.
+     * @param id The author ID.
+     * @return The author, or null if there is none.
+     */
+    public Author get(int id) {
+        int slot = findSlot(id);
+        return slot >= 0 ? authors[table[slot] - 1] : null;
+    }
+
+    /**
+     * Retrieves the position of an author in insertion order, counting removed entries that have not been squeezed out yet.
+     * Positions stay valid until the next put or remove.
+     * @param id The author ID.
+     * @return The position, or -1 if there is no author with the ID.
+     */
+    public int indexOf(int id) {
+        int slot = findSlot(id);
+        return slot >= 0 ? table[slot] - 1 : -1;
+    }
+
+    /**
+     * Retrieves the author at a position returned by indexOf.
+     * @param index The position.
+     * @return The author at that position, or null if it was removed.
+     */
+    public Author authorAt(int index) {
+        return authors[index];
+    }
+
+    /**
+     * Retrieves the number of positions in use, which is one more than the largest position indexOf can return.
+     * @return The number of positions.
+     */
+    public int positions() {
+        return end;
+    }
+
+    /**
+     * Checks whether there is an author with an ID.
+     * @param id The author ID.
+     * @return true if the map holds an author with the ID.
+     */
+    public boolean containsKey(int id) {
+        return findSlot(id) >= 0;
+    }
+
+    /**
+     * Stores an author under an ID. Replacing an author keeps its place in the order.
+     * @param id The author ID.
+     * @param author The author.
+     * @return The author previously stored under the ID, or null if there was none.
+     */
+    public Author put(int id, Author author) {
+        int slot = findSlot(id);
+        if (slot >= 0) {
+            int index = table[slot] - 1;
+            Author previous = authors[index];
+            authors[index] = author;
+            return previous;
+        }
+        if (end == ids.length || (usedSlots + 1) * 2 > table.length) {
+            grow();
+            slot = findSlot(id);
+        }
+        slot = -slot - 1;
+        if (table[slot] == EMPTY) {
+            usedSlots++;
+        }
+        ids[end] = id;
+        authors[end] = author;
+        table[slot] = ++end;
+        size++;
+        return null;
+    }
+
+    /**
+     * Removes the author with an ID.
+     * @param id The author ID.
+     * @return The removed author, or null if there was none.
+     */
+    public Author remove(int id) {
+        int slot = findSlot(id);
+        if (slot < 0) {
+            return null;
+        }
+        int index = table[slot] - 1;
+        Author removed = authors[index];
+        authors[index] = null;
+        table[slot] = REMOVED;
+        size--;
+        return removed;
+    }
+
+    /**
+     * Retrieves the number of authors in the map.
+     * @return The number of authors.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retrieves every author in insertion order.
+     * @return A new list of the authors.
+     */
+    public List<Author> values() {
+        List<Author> values = new ArrayList<>(size);
+        for (int i = 0; i < end; i++) {
+            if (authors[i] != null) {
+                values.add(authors[i]);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Squeezes out removed entries and, if the map is more than half full, doubles its capacity. Rebuilds the table.
+     */
+    private void grow() {
+        int capacity = size * 2 > ids.length ? ids.length * 2 : ids.length;
+        int[] newIds = new int[capacity];
+        Author[] newAuthors = new Author[capacity];
+        int count = 0;
+        for (int i = 0; i < end; i++) {
+            if (authors[i] != null) {
+                newIds[count] = ids[i];
+                newAuthors[count] = authors[i];
+                count++;
+            }
+        }
+        ids = newIds;
+        authors = newAuthors;
+        end = count;
+        table = new int[tableSizeFor(capacity)];
+        usedSlots = count;
+        int mask = table.length - 1;
+        for (int i = 0; i < count; i++) {
+            int slot = hash(ids[i]) & mask;
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+    }
+
+    /**
+     * Removes every author while keeping the current capacity.
+     */
+    public void clear() {
+        Arrays.fill(authors, 0, end, null);
+        Arrays.fill(table, EMPTY);
+        end = 0;
+        size = 0;
+        usedSlots = 0;
+    }
+}
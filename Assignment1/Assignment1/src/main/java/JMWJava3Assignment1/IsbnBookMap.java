@@ -0,0 +1,220 @@
+package JMWJava3Assignment1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A map from ISBNs to books that takes each book's key from the book itself, so it holds no ISBN strings of its own.
+ * Books whose ISBN is packed into a long are found by comparing the packed values; other books by comparing their ISBN text.
+ * Books are stored in insertion order in an array, and an open-addressing table of int slots points into it,
+ * so iteration follows the order books were added, like a LinkedHashMap.
+ * Removed entries leave a gap that is squeezed out the next time the array grows.
+ * The map is not thread-safe.
+ * @author john-michael woodrow
+ */
+public class IsbnBookMap {
+    // Table slots hold an entry's position plus one. Zero marks an empty slot and -1 a slot whose entry was removed.
+    private static final int EMPTY = 0;
+    private static final int REMOVED = -1;
+
+    private Book[] books;
+    private int[] table;
+    // Entries are appended at this position; gaps left by removals are below it.
+    private int end;
+    private int size;
+    // Slots that are not empty, including removed ones, which still lengthen probes.
+    private int usedSlots;
+
+    /**
+     * Creates an empty map.
+     */
+    public IsbnBookMap() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty map with room for a number of books before it has to grow.
+     * @param expectedSize The number of books expected.
+     */
+    public IsbnBookMap(int expectedSize) {
+        int capacity = Math.max(4, expectedSize);
+        books = new Book[capacity];
+        table = new int[tableSizeFor(capacity)];
+    }
+
+    /**
+     * Returns a power of two that keeps the table at most half full for the given number of entries.
+     */
+    private static int tableSizeFor(int capacity) {
+        return Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) * 2;
+    }
+
+    /**
+     * Hashes an ISBN given as its packed value or, if it is not packed, its text.
+     */
+    private static int hash(long code, String text) {
+        int h = (text != null ? text.hashCode() : Long.hashCode(code)) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Finds the table slot for an ISBN given as its packed value or, if it is not packed, its text.
+     * @return The slot holding the ISBN, or the negated position minus one of the slot where it would be inserted.
+     */
+    private int findSlot(long code, String text) {
+        int mask = table.length - 1;
+        int slot = hash(code, text) & mask;
+        int firstRemoved = -1;
+        while (true) {
+            int entry = table[slot];
+            if (entry == EMPTY) {
+                return -(firstRemoved >= 0 ? firstRemoved : slot) - 1;
+            }
+            if (entry == REMOVED) {
+                if (firstRemoved < 0) {
+                    firstRemoved = slot;
+                }
+            } else {
+                Book book = books[entry - 1];
+                if (text != null ? text.equals(book.getIsbnText()) : code == book.getIsbnCode()) {
+                    return slot;
+                }
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Finds the table slot for an ISBN.
+     */
+    private int findSlot(String isbn) {
+        long code = Book.packIsbn(isbn);
+        return findSlot(code, code == Book.NOT_PACKED ? isbn : null);
+    }
+
+    /**
+     * Retrieves the book with an ISBN.
+     * @param isbn The ISBN.
+     * @return The book, or null if there is none.
+     */
+    public Book get(String isbn) {
+        int slot = findSlot(isbn);
+        return slot >= 0 ? books[table[slot] - 1] : null;
+    }
+
+    /**
+     * Checks whether there is a book with an ISBN.
+     * @param isbn The ISBN.
+     * @return true if the map holds a book with the ISBN.
+     */
+    public boolean containsKey(String isbn) {
+        return findSlot(isbn) >= 0;
+    }
+
+    /**
+     * Stores a book under its ISBN. Replacing a book keeps its place in the order.
+     * @param book The book.
+     * @return The book previously stored under the same ISBN, or null if there was none.
+     */
+    public Book put(Book book) {
+        long code = book.getIsbnCode();
+        String text = book.getIsbnText();
+        int slot = findSlot(code, text);
+        if (slot >= 0) {
+            int index = table[slot] - 1;
+            Book previous = books[index];
+            books[index] = book;
+            return previous;
+        }
+        if (end == books.length || (usedSlots + 1) * 2 > table.length) {
+            grow();
+            slot = findSlot(code, text);
+        }
+        slot = -slot - 1;
+        if (table[slot] == EMPTY) {
+            usedSlots++;
+        }
+        books[end] = book;
+        table[slot] = ++end;
+        size++;
+        return null;
+    }
+
+    /**
+     * Removes the book with an ISBN.
+     * @param isbn The ISBN.
+     * @return The removed book, or null if there was none.
+     */
+    public Book remove(String isbn) {
+        int slot = findSlot(isbn);
+        if (slot < 0) {
+            return null;
+        }
+        int index = table[slot] - 1;
+        Book removed = books[index];
+        books[index] = null;
+        table[slot] = REMOVED;
+        size--;
+        return removed;
+    }
+
+    /**
+     * Retrieves the number of books in the map.
+     * @return The number of books.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retrieves every book in insertion order.
+     * @return A new list of the books.
+     */
+    public List<Book> values() {
+        List<Book> values = new ArrayList<>(size);
+        for (int i = 0; i < end; i++) {
+            if (books[i] != null) {
+                values.add(books[i]);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Squeezes out removed entries and, if the map is more than half full, doubles its capacity. Rebuilds the table.
+     */
+    private void grow() {
+        int capacity = size * 2 > books.length ? books.length * 2 : books.length;
+        Book[] newBooks = new Book[capacity];
+        int count = 0;
+        for (int i = 0; i < end; i++) {
+            if (books[i] != null) {
+                newBooks[count++] = books[i];
+            }
+        }
+        books = newBooks;
+        end = count;
+        table = new int[tableSizeFor(capacity)];
+        usedSlots = count;
+        int mask = table.length - 1;
+        for (int i = 0; i < count; i++) {
+            int slot = hash(books[i].getIsbnCode(), books[i].getIsbnText()) & mask;
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+    }
+
+    /**
+     * Removes every book while keeping the current capacity.
+     */
+    public void clear() {
+        Arrays.fill(books, 0, end, null);
+        Arrays.fill(table, EMPTY);
+        end = 0;
+        size = 0;
+        usedSlots = 0;
+    }
+}
@@ -2,63 +2,309 @@ package JMWJava3Assignment1;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * Manages a library system containing books and authors.
  * Provides methods to retrieve, add, update, and delete books and authors.
  * Data is loaded from and synchronized with database.
+ * Books are indexed by ISBN and authors by ID and by full name, so lookups do not scan the catalog.
+ * Books are kept in an IsbnBookMap and authors in an IntAuthorMap, so the indexes hold no ISBN strings or boxed IDs.
+ * In write-behind mode, changes other than adding an author are applied in memory at once and written to the database
+ * later by a WriteBehindQueue.
+ * Changes made by other library instances can be applied one book or author at a time with applyAuthorChange
+ * and applyBookChange, which a ChangePoller does between menu commands.
  * @author john-michael woodrow
  */
 public class Library {
-    private List<Book> books;
-    private List<Author> authors;
-    private final BookDatabaseManager dbManager;
+    private static final long REFRESH_FLUSH_TIMEOUT_MILLIS = 10_000;
+
+    private IsbnBookMap booksByIsbn = new IsbnBookMap();
+    private IntAuthorMap authorsById = new IntAuthorMap();
+    private Map<String, Author> authorsByName = new HashMap<>();
+    private Map<Author, String> nameKeys = new IdentityHashMap<>();
+    private volatile BookDatabaseManager dbManager;
+    private final boolean linkAtStartup;
+    private boolean linked;
+    private volatile WriteBehindQueue writeBehind;
+    // Counts local changes and reloads. Only the menu thread changes it; a ChangePoller reads it to tell
+    // whether the library changed while it was reading the database.
+    private volatile int modifications;
+    private long failedChanges;
 
     /**
-     * Constructs a Library instance with a given database manager and loads initial data.
+     * Constructs a Library instance with a given database manager and loads initial data,
+     * including the links between every book and its authors.
      * @param dbManager The database manager handling book and author data.
      */
     public Library(BookDatabaseManager dbManager) {
+        this(dbManager, true);
+    }
+
+    /**
+     * Constructs a Library instance with a given database manager and loads initial data.
+     * @param dbManager The database manager handling book and author data.
+     * @param linkAtStartup If true, books and authors are linked while loading. If false, they are linked
+     *                      the first time the full book or author list is requested.
+     */
+    public Library(BookDatabaseManager dbManager, boolean linkAtStartup) {
         this.dbManager = dbManager;
+        this.linkAtStartup = linkAtStartup;
         loadLibraryData();
     }
 
     /**
-     * Loads books and authors from the database into the library.
+     * Constructs a Library instance from data that has already been read from the database,
+     * for example by several connections at once.
+     * @param dbManager The database manager used for changes and later refreshes,
+     *                  or null if the database has not been connected yet.
+     * @param books All books.
+     * @param authors All authors.
+     * @param links All rows of the authorISBN table.
+     */
+    public Library(BookDatabaseManager dbManager, List<Book> books, List<Author> authors, AuthorLinks links) {
+        this.dbManager = dbManager;
+        this.linkAtStartup = true;
+        replaceCatalog(books, authors, links);
+    }
+
+    /**
+     * Loads books and authors from the database into the library and rebuilds the indexes.
      */
     private void loadLibraryData() {
         try {
-            books = dbManager.getAllBooks();
-            authors = dbManager.getAllAuthors();
+            BookDatabaseManager database = database();
+            setCatalog(database.getAllBooks(), database.getAllAuthors());
+            if (linkAtStartup) {
+                linkRelationships();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading library data: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the database manager, failing if the library was loaded from a snapshot and is not connected yet.
+     */
+    private BookDatabaseManager database() throws SQLException {
+        BookDatabaseManager database = dbManager;
+        if (database == null) {
+            throw new SQLException("Not connected to the database");
+        }
+        return database;
+    }
+
+    /**
+     * Retrieves the database manager this library writes through.
+     * @return The database manager, or null if the database has not been connected yet.
+     */
+    public BookDatabaseManager getDatabaseManager() {
+        return dbManager;
+    }
+
+    /**
+     * Connects the library to a database manager, for example once the database is reachable after loading from a snapshot.
+     * @param dbManager The database manager to write through.
+     */
+    public void setDatabaseManager(BookDatabaseManager dbManager) {
+        this.dbManager = dbManager;
+    }
+
+    /**
+     * Switches the library to write-behind mode. From then on, books and authors are changed in memory at once,
+     * and the changes are queued to be written to the database. New authors are still added to the database straight away,
+     * because the database assigns their IDs.
+     * @param writeBehind The queue that writes the changes.
+     */
+    public void enableWriteBehind(WriteBehindQueue writeBehind) {
+        this.writeBehind = writeBehind;
+    }
+
+    /**
+     * Retrieves the queue that writes this library's changes.
+     * @return The write-behind queue, or null if changes are written straight away.
+     */
+    public WriteBehindQueue getWriteBehind() {
+        return writeBehind;
+    }
+
+    /**
+     * Replaces the whole catalog with data that has already been read, and links it.
+     * @param books All books.
+     * @param authors All authors.
+     * @param links All rows of the authorISBN table.
+     */
+    public void replaceCatalog(List<Book> books, List<Author> authors, AuthorLinks links) {
+        setCatalog(books, authors);
+        linkAll(links);
+        linked = true;
+    }
+
+    /**
+     * Replaces the books and authors and rebuilds the indexes. The new catalog is not linked yet.
+     */
+    private void setCatalog(List<Book> books, List<Author> authors) {
+        booksByIsbn = new IsbnBookMap(books.size());
+        authorsById = new IntAuthorMap(authors.size());
+        authorsByName = new HashMap<>();
+        nameKeys = new IdentityHashMap<>();
+        linked = false;
+        modifications++;
 
-            for (Book book : books) {
-                dbManager.loadAuthorsForBook(book, this);
+        for (Book book : books) {
+            booksByIsbn.put(book);
+        }
+        for (Author author : authors) {
+            authorsById.put(author.getAuthorId(), author);
+            indexName(author);
+        }
+    }
+
+    /**
+     * Links every book to its authors, replacing any links they already had.
+     * The rows are grouped by author with a counting sort over int arrays, so each author's book list is created
+     * at its final size, and each book's author list is trimmed to its size once every link is in place.
+     * @param links All rows of the authorISBN table.
+     */
+    private void linkAll(AuthorLinks links) {
+        for (Book book : booksByIsbn.values()) {
+            book.resetAuthors();
+        }
+
+        int rows = links.size();
+        int positions = authorsById.positions();
+        Book[] rowBooks = new Book[rows];
+        int[] rowAuthors = new int[rows];
+        int[] start = new int[positions + 1];
+        for (int i = 0; i < rows; i++) {
+            rowBooks[i] = booksByIsbn.get(links.getIsbn(i));
+            rowAuthors[i] = authorsById.indexOf(links.getAuthorId(i));
+            if (rowBooks[i] != null && rowAuthors[i] >= 0) {
+                start[rowAuthors[i] + 1]++;
+            }
+        }
+        for (int a = 0; a < positions; a++) {
+            start[a + 1] += start[a];
+        }
+        int[] byAuthor = new int[start[positions]];
+        int[] next = Arrays.copyOf(start, positions);
+        for (int i = 0; i < rows; i++) {
+            if (rowBooks[i] != null && rowAuthors[i] >= 0) {
+                byAuthor[next[rowAuthors[i]]++] = i;
             }
+        }
+
+        for (int a = 0; a < positions; a++) {
+            Author author = authorsById.authorAt(a);
+            if (author == null) {
+                continue;
+            }
+            author.resetBooks(start[a + 1] - start[a]);
+            for (int k = start[a]; k < start[a + 1]; k++) {
+                Book book = rowBooks[byAuthor[k]];
+                // Only the book's short author list is checked for a duplicate row, and by identity,
+                // since the library holds one instance per author.
+                if (!containsInstance(book.getAuthors(), author)) {
+                    book.getAuthors().add(author);
+                    author.getBooks().add(book);
+                }
+            }
+        }
+        for (Book book : booksByIsbn.values()) {
+            book.trimAuthors();
+        }
+    }
 
-            for (Author author : authors) {
-                dbManager.loadBooksForAuthor(author, this);
+    /**
+     * Checks whether a list holds a particular instance.
+     */
+    private static boolean containsInstance(List<?> list, Object instance) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == instance) {
+                return true;
             }
+        }
+        return false;
+    }
 
-        } catch (SQLException e) {
-            System.err.println("Error loading library data: " + e.getMessage());
+    /**
+     * Builds the name index key for an author. Names are matched without regard to case.
+     */
+    private static String nameKey(String firstName, String lastName) {
+        return firstName.toLowerCase(Locale.ROOT) + '\t' + lastName.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Adds an author to the name index. If another author already has the same name, the first one is kept.
+     */
+    private void indexName(Author author) {
+        String key = nameKey(author.getFirstName(), author.getLastName());
+        nameKeys.put(author, key);
+        authorsByName.putIfAbsent(key, author);
+    }
+
+    /**
+     * Removes an author from the name index under the name it was indexed with.
+     * If another author has the same name, that author takes its place.
+     */
+    private void unindexName(Author author) {
+        String key = nameKeys.remove(author);
+        if (key == null || authorsByName.get(key) != author) {
+            return;
+        }
+        authorsByName.remove(key);
+        for (int i = 0; i < authorsById.positions(); i++) {
+            Author other = authorsById.authorAt(i);
+            if (other != null && other != author && key.equals(nameKeys.get(other))) {
+                authorsByName.put(key, other);
+                break;
+            }
         }
     }
 
     /**
-     * Retrieves all books in the library.
+     * Links all books and authors with one read of the authorISBN table, unless that has already been done.
+     * @throws SQLException if the links cannot be read.
+     */
+    private void linkRelationships() throws SQLException {
+        if (!linked) {
+            linkAll(database().getAllRelationships());
+            linked = true;
+        }
+    }
+
+    /**
+     * Retrieves all books in the library, with their authors linked.
      * @return A list of books.
      */
     public List<Book> getBooks() {
-        return books;
+        ensureLinked();
+        return booksByIsbn.values();
     }
 
     /**
-     * Retrieves all authors in the library.
+     * Retrieves all authors in the library, with their books linked.
      * @return A list of authors.
      */
     public List<Author> getAuthors() {
-        return authors;
+        ensureLinked();
+        return authorsById.values();
+    }
+
+    /**
+     * Links the catalog on first use when the library was created without linking at startup.
+     */
+    private void ensureLinked() {
+        try {
+            linkRelationships();
+        } catch (SQLException e) {
+            System.err.println("Error loading book and author links: " + e.getMessage());
+        }
     }
 
     /**
@@ -67,23 +313,26 @@ public class Library {
      * @return The book with the given ISBN, or null if not found.
      */
     public Book getBookByIsbn(String isbn) {
-        return books.stream()
-                .filter(book -> book.getIsbn().equals(isbn))
-                .findFirst()
-                .orElse(null);
+        return booksByIsbn.get(isbn);
     }
 
     /**
-     * Finds and returns an author by their full name.
+     * Finds and returns an author by their ID.
+     * @param authorId The ID of the author.
+     * @return The author with the given ID, or null if not found.
+     */
+    public Author getAuthorById(int authorId) {
+        return authorsById.get(authorId);
+    }
+
+    /**
+     * Finds and returns an author by their full name, ignoring case.
      * @param firstName The author's first name.
      * @param lastName The author's last name.
      * @return The author with the given name, or null if not found.
      */
     public Author getAuthorByFullName(String firstName, String lastName) {
-        return authors.stream()
-                .filter(author -> author.getFirstName().equals(firstName) && author.getLastName().equals(lastName))
-                .findFirst()
-                .orElse(null);
+        return authorsByName.get(nameKey(firstName, lastName));
     }
 
     /**
@@ -91,34 +340,62 @@ public class Library {
      * @param book The book to update.
      */
     public void updateBook(Book book) {
+        modifications++;
+        if (writeBehind != null) {
+            writeBehind.updateBook(book);
+            return;
+        }
         try {
-            dbManager.updateBook(book);
+            database().updateBook(book);
         } catch (SQLException e) {
+            failedChanges++;
             System.err.println("Error updating book: " + e.getMessage());
         }
     }
 
     /**
-     * Updates an author's information in the database.
+     * Updates an author's information in the database and re-indexes the author under its new name.
      * @param author The author to update.
      */
     public void updateAuthor(Author author) {
+        modifications++;
+        if (writeBehind != null) {
+            writeBehind.updateAuthor(author);
+            reindexName(author);
+            return;
+        }
         try {
-            dbManager.updateAuthor(author);
+            database().updateAuthor(author);
+            reindexName(author);
         } catch (SQLException e) {
+            failedChanges++;
             System.err.println("Error updating author: " + e.getMessage());
         }
     }
 
+    /**
+     * Moves an author held by this library to its new name in the name index.
+     */
+    private void reindexName(Author author) {
+        if (authorsById.get(author.getAuthorId()) == author) {
+            unindexName(author);
+            indexName(author);
+        }
+    }
+
     /**
      * Adds a new author to the library and database.
+     * The author is added to the database straight away, even in write-behind mode, so it has its ID before it is used.
      * @param author The author to add.
      */
     public void addAuthor(Author author) {
+        modifications++;
         try {
-            dbManager.addAuthor(author);
-            authors.add(author);
+            database().addAuthor(author);
+            authorsById.put(author.getAuthorId(), author);
+            indexName(author);
         } catch (SQLException e) {
+            failedChanges++;
             System.err.println("Error adding author: " + e.getMessage());
         }
     }
@@ -128,44 +405,223 @@ public class Library {
      * @param book The book to add.
      */
     public void addBook(Book book) {
+        modifications++;
+        if (writeBehind != null) {
+            // The database would reject the duplicate ISBN, so reject it here before it is queued.
+            if (booksByIsbn.containsKey(book.getIsbn())) {
+                failedChanges++;
+                System.err.println("Error adding book: a book with ISBN " + book.getIsbn() + " already exists");
+                return;
+            }
+            writeBehind.addBook(book);
+            booksByIsbn.put(book);
+            return;
+        }
         try {
-            dbManager.addBook(book);
-            books.add(book);
+            database().addBook(book);
+            booksByIsbn.put(book);
         } catch (SQLException e) {
+            failedChanges++;
             System.err.println("Error adding book: " + e.getMessage());
         }
     }
 
     /**
-     * Deletes a book from the library and database.
+     * Links a book to one more author in the library and database.
+     * @param book The book to link.
+     * @param author The author to link. The author must already be in the database.
+     */
+    public void linkBookAndAuthor(Book book, Author author) {
+        if (book.getAuthors().contains(author)) {
+            return;
+        }
+        modifications++;
+        if (writeBehind != null) {
+            link(book, author);
+            writeBehind.linkBook(book);
+            return;
+        }
+        try {
+            database().addBookAuthor(book, author);
+            link(book, author);
+        } catch (SQLException e) {
+            failedChanges++;
+            System.err.println("Error linking book and author: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Adds a link to both the book's and the author's lists. Only the book's list is checked for a duplicate,
+     * as in linkAll, so linking is not slowed down by authors with many books.
+     */
+    private static void link(Book book, Author author) {
+        if (!book.getAuthors().contains(author)) {
+            book.getAuthors().add(author);
+            author.getBooks().add(book);
+        }
+    }
+
+    /**
+     * Deletes a book from the library and database, and unlinks it from its authors.
      * @param book The book to delete.
      */
     public void deleteBook(Book book) {
+        modifications++;
+        if (writeBehind != null) {
+            writeBehind.deleteBook(book);
+            removeBook(book);
+            return;
+        }
         try {
-            dbManager.deleteBook(book);
-            books.removeIf(b -> b.getIsbn().equals(book.getIsbn()));
+            database().deleteBook(book);
+            removeBook(book);
         } catch (SQLException e) {
+            failedChanges++;
             System.err.println("Error deleting book: " + e.getMessage());
         }
     }
 
     /**
-     * Deletes an author from the library and database.
+     * Removes a book from the library and from its authors' book lists.
+     */
+    private void removeBook(Book book) {
+        Book removed = booksByIsbn.remove(book.getIsbn());
+        if (removed != null) {
+            for (Author author : removed.getAuthors()) {
+                author.getBooks().remove(removed);
+            }
+        }
+    }
+
+    /**
+     * Deletes an author from the library and database, and unlinks it from its books.
      * @param author The author to delete.
      */
     public void deleteAuthor(Author author) {
+        modifications++;
+        if (writeBehind != null) {
+            writeBehind.deleteAuthor(author);
+            removeAuthor(author);
+            return;
+        }
         try {
-            dbManager.deleteAuthor(author);
-            authors.removeIf(a -> a.getAuthorId() == author.getAuthorId());
+            database().deleteAuthor(author);
+            removeAuthor(author);
         } catch (SQLException e) {
+            failedChanges++;
             System.err.println("Error deleting author: " + e.getMessage());
         }
     }
 
+    /**
+     * Removes an author from the library, the name index and its books' author lists.
+     */
+    private void removeAuthor(Author author) {
+        Author removed = authorsById.get(author.getAuthorId());
+        if (removed != null) {
+            unindexName(removed);
+            authorsById.remove(removed.getAuthorId());
+            for (Book book : removed.getBooks()) {
+                book.getAuthors().remove(removed);
+            }
+        }
+    }
+
+    /**
+     * Retrieves how many changes failed, for example because the database rejected them.
+     * @return The number of failed changes.
+     */
+    public long getFailedChangeCount() {
+        return failedChanges;
+    }
+
+    /**
+     * Retrieves a count that goes up whenever the library is changed locally or reloaded.
+     * @return The modification count.
+     */
+    int getModificationCount() {
+        return modifications;
+    }
+
+    /**
+     * Brings one author in line with the database after another library instance changed it.
+     * Applying the same state twice has no further effect.
+     * @param authorId The ID of the author.
+     * @param current The author as it is now in the database, or null if it was deleted.
+     */
+    public void applyAuthorChange(int authorId, Author current) {
+        Author existing = authorsById.get(authorId);
+        if (current == null) {
+            if (existing != null) {
+                removeAuthor(existing);
+            }
+            return;
+        }
+        if (existing == null) {
+            authorsById.put(authorId, current);
+            indexName(current);
+        } else if (!existing.getFirstName().equals(current.getFirstName()) || !existing.getLastName().equals(current.getLastName())) {
+            existing.setFirstName(current.getFirstName());
+            existing.setLastName(current.getLastName());
+            reindexName(existing);
+        }
+    }
+
+    /**
+     * Brings one book and its author links in line with the database after another library instance changed it.
+     * Apply author changes first, so the book's new authors are already known. Applying the same state twice has no further effect.
+     * @param isbn The ISBN of the book.
+     * @param current The book as it is now in the database, without authors, or null if it was deleted.
+     * @param authorIds The IDs of the book's authors in the database.
+     */
+    public void applyBookChange(String isbn, Book current, int[] authorIds) {
+        Book book = booksByIsbn.get(isbn);
+        if (current == null) {
+            if (book != null) {
+                removeBook(book);
+            }
+            return;
+        }
+        if (book == null) {
+            book = current;
+            booksByIsbn.put(book);
+        } else {
+            book.setTitle(current.getTitle());
+            book.setEditionNumber(current.getEditionNumber());
+            book.setCopyRight(current.getCopyright());
+        }
+
+        List<Author> authors = new ArrayList<>(authorIds.length);
+        for (int authorId : authorIds) {
+            Author author = authorsById.get(authorId);
+            if (author != null && !containsInstance(authors, author)) {
+                authors.add(author);
+            }
+        }
+        for (Author author : book.getAuthors()) {
+            if (!containsInstance(authors, author)) {
+                author.getBooks().remove(book);
+            }
+        }
+        for (Author author : authors) {
+            if (!containsInstance(book.getAuthors(), author)) {
+                author.getBooks().add(book);
+            }
+        }
+        book.getAuthors().clear();
+        book.getAuthors().addAll(authors);
+    }
+
     /**
      * Refreshes the library data by reloading books and authors from the database.
+     * In write-behind mode, the waiting changes are written first so the reload includes them.
+     * If they cannot be written in time, the library keeps its in-memory data.
      */
     public void refreshData() {
+        if (writeBehind != null && !writeBehind.flush(REFRESH_FLUSH_TIMEOUT_MILLIS)) {
+            System.err.println("Not refreshing the library: " + writeBehind.getQueueDepth() + " changes are still waiting to be written");
+            return;
+        }
         loadLibraryData();
     }
 }
@@ -0,0 +1,39 @@
+package JMWJava3Assignment1;
+
+/**
+ * A fixed-size table that lets equal names share one String instance.
+ * Every row read from the database brings its own copy of each name, so a catalog where many authors share
+ * a first or last name would otherwise hold the same text many times.
+ * Each name has one slot, chosen by its hash. A name that finds an equal name in its slot is replaced by that instance,
+ * and a name that finds a different one takes the slot over. The table never grows, so it keeps at most SIZE strings alive.
+ * Threads may race on a slot, but the worst outcome is a missed chance to share an instance, because Strings are immutable.
+ * @author john-michael woodrow
+ */
+public final class NameTable {
+    private static final int SIZE_BITS = 16;
+    private static final int SIZE = 1 << SIZE_BITS;
+    // Longer strings are rarely repeated and would keep too much alive.
+    private static final int MAX_LENGTH = 64;
+    private static final String[] TABLE = new String[SIZE];
+
+    private NameTable() {
+    }
+
+    /**
+     * Returns an instance equal to a name, shared with earlier equal names when the table still holds one.
+     * @param name The name, or null.
+     * @return A string equal to the name, or null if the name is null.
+     */
+    public static String dedup(String name) {
+        if (name == null || name.length() > MAX_LENGTH) {
+            return name;
+        }
+        int slot = (name.hashCode() * 0x9E3779B9) >>> (32 - SIZE_BITS);
+        String cached = TABLE[slot];
+        if (name.equals(cached)) {
+            return cached;
+        }
+        TABLE[slot] = name;
+        return name;
+    }
+}
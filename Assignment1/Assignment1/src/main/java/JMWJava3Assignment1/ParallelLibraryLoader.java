@@ -0,0 +1,97 @@
+package JMWJava3Assignment1;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.ToIntFunction;
+
+/**
+ * Builds a Library by reading the titles, authors and authorISBN tables at the same time.
+ * Each table is read on its own connection in a virtual thread, so loading takes about as long as the slowest table
+ * instead of the sum of all three. The extra connections are closed once their table has been read.
+ * The time taken by each phase is printed.
+ * @author john-michael woodrow
+ */
+public class ParallelLibraryLoader {
+
+    private ParallelLibraryLoader() {
+    }
+
+    /**
+     * Loads the library.
+     * @param dbUrl The database URL.
+     * @param username The database username.
+     * @param password The database password.
+     * @param dbManager The database manager the library will use. Titles are read on its connection.
+     * @return The loaded library.
+     * @throws SQLException if a connection cannot be opened or a table cannot be read.
+     */
+    public static Library load(String dbUrl, String username, String password, BookDatabaseManager dbManager) throws SQLException {
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<List<Book>> books = executor.submit(() -> timed("titles", start, dbManager::getAllBooks, List::size));
+            Future<List<Author>> authors = executor.submit(() -> {
+                BookDatabaseManager reader = new BookDatabaseManager(dbUrl, username, password);
+                try {
+                    return timed("authors", start, reader::getAllAuthors, List::size);
+                } finally {
+                    reader.close();
+                }
+            });
+            Future<AuthorLinks> links = executor.submit(() -> {
+                BookDatabaseManager reader = new BookDatabaseManager(dbUrl, username, password);
+                try {
+                    return timed("authorISBN", start, reader::getAllRelationships, AuthorLinks::size);
+                } finally {
+                    reader.close();
+                }
+            });
+
+            List<Book> bookList = books.get();
+            List<Author> authorList = authors.get();
+            AuthorLinks linkList = links.get();
+
+            long linkStart = System.nanoTime();
+            Library library = new Library(dbManager, bookList, authorList, linkList);
+            System.out.printf("Linked %d books and %d authors in %d ms%n", bookList.size(), authorList.size(), elapsedMillis(linkStart));
+            System.out.printf("Library ready in %d ms%n", elapsedMillis(start));
+            return library;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException("Error loading library data", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while loading library data", e);
+        }
+    }
+
+    /**
+     * A table read that may fail with a database error.
+     */
+    private interface TableReader<T> {
+        T read() throws SQLException;
+    }
+
+    /**
+     * Reads one table and prints how many rows it returned, how long the read took
+     * and how long after the start of loading it finished.
+     */
+    private static <T> T timed(String table, long loadStart, TableReader<T> reader, ToIntFunction<T> rowCount) throws SQLException {
+        long start = System.nanoTime();
+        T rows = reader.read();
+        System.out.printf("Read %d rows from %s in %d ms (done at %d ms)%n", rowCount.applyAsInt(rows), table, elapsedMillis(start), elapsedMillis(loadStart));
+        return rows;
+    }
+
+    /**
+     * Returns the milliseconds since a System.nanoTime() reading.
+     */
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
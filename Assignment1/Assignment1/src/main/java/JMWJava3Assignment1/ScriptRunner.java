@@ -0,0 +1,256 @@
+package JMWJava3Assignment1;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs library commands from a script instead of the interactive menu.
+ * Each line holds one command and its arguments, separated by tabs so titles and names can contain spaces.
+ * Blank lines and lines starting with # are skipped. The commands are:
+ * <pre>
+ * add-book      isbn  title  edition  copyright  [first  last]...
+ * update-book   isbn  title  edition  copyright
+ * delete-book   isbn
+ * add-author    first  last
+ * update-author first  last  newFirst  newLast
+ * delete-author first  last
+ * link          isbn  first  last
+ * book          isbn
+ * author        first  last
+ * </pre>
+ * Authors named by add-book are added first if the library does not know them yet.
+ * Commands are run in batches of BATCH_SIZE, each in one database transaction, unless the library is in write-behind mode,
+ * which already batches its writes. If a command fails in the database or the commit fails, the batch is rolled back,
+ * the library is reloaded so it matches the database again, and the batch's commands are run again one at a time,
+ * so only the commands that fail on their own are lost and counted as failed.
+ * Output is buffered and written when the script ends, and a throughput summary is printed last.
+ * @author john-michael woodrow
+ */
+public class ScriptRunner {
+    private static final int BATCH_SIZE = 1000;
+    private static final long FLUSH_TIMEOUT_MILLIS = 600_000;
+
+    private final Library library;
+    private final PrintWriter out;
+    private int commands;
+    private int failed;
+
+    /**
+     * Creates a runner for a library.
+     * @param library The library to run commands against.
+     * @param out Where query results and the summary are written.
+     */
+    public ScriptRunner(Library library, PrintWriter out) {
+        this.library = library;
+        this.out = out;
+    }
+
+    /**
+     * Runs every command in a script and prints a summary of how many commands ran and how fast.
+     * @param in The script to read.
+     * @throws IOException if the script cannot be read.
+     */
+    public void run(BufferedReader in) throws IOException {
+        long start = System.nanoTime();
+        int lineNumber = 0;
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        List<Integer> batchLines = new ArrayList<>(BATCH_SIZE);
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            batch.add(line);
+            batchLines.add(lineNumber);
+            if (batch.size() == BATCH_SIZE) {
+                runBatch(batch, batchLines);
+                batch.clear();
+                batchLines.clear();
+            }
+        }
+        runBatch(batch, batchLines);
+
+        WriteBehindQueue writeBehind = library.getWriteBehind();
+        if (writeBehind != null && !writeBehind.flush(FLUSH_TIMEOUT_MILLIS)) {
+            System.err.println("Not every change was written to the database");
+        }
+
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        out.println("Ran " + commands + " commands in " + elapsedMillis + " ms ("
+                + commands * 1000L / elapsedMillis + " commands/s), " + failed + " failed");
+        out.flush();
+    }
+
+    /**
+     * Runs a batch of commands, in one transaction if the library writes straight to the database.
+     * A command that fails is reported and does not stop the rest of the batch.
+     */
+    private void runBatch(List<String> batch, List<Integer> batchLines) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        commands += batch.size();
+        BookDatabaseManager dbManager = library.getDatabaseManager();
+        if (library.getWriteBehind() != null || dbManager == null) {
+            runCommands(batch, batchLines, out).forEach(System.err::println);
+            return;
+        }
+        StringWriter batchOutput = new StringWriter();
+        List<String> errors = new ArrayList<>();
+        int failedBefore = failed;
+        try {
+            dbManager.runInTransaction(() -> {
+                long failedChangesBefore = library.getFailedChangeCount();
+                errors.addAll(runCommands(batch, batchLines, new PrintWriter(batchOutput)));
+                // A failed statement may leave part of its command in the transaction, so the batch is not committed.
+                if (library.getFailedChangeCount() != failedChangesBefore) {
+                    throw new SQLException("a command failed in the database");
+                }
+            });
+        } catch (SQLException e) {
+            System.err.println("Rolled back the commands up to line " + batchLines.get(batchLines.size() - 1) + " (" + e.getMessage()
+                    + "), running them again one at a time");
+            failed = failedBefore;
+            library.refreshData();
+            runCommands(batch, batchLines, out).forEach(System.err::println);
+            return;
+        }
+        out.write(batchOutput.toString());
+        errors.forEach(System.err::println);
+    }
+
+    /**
+     * Runs commands one after another and counts the ones that fail, whether the script was wrong or the library
+     * could not make the change.
+     * @return The messages for the commands that failed.
+     */
+    private List<String> runCommands(List<String> batch, List<Integer> batchLines, PrintWriter output) {
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            long failedChangesBefore = library.getFailedChangeCount();
+            try {
+                runCommand(batch.get(i).split("\t", -1), output);
+                if (library.getFailedChangeCount() != failedChangesBefore) {
+                    failed++;
+                    errors.add("Line " + batchLines.get(i) + ": the change failed");
+                }
+            } catch (IllegalArgumentException e) {
+                failed++;
+                errors.add("Line " + batchLines.get(i) + ": " + e.getMessage());
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Runs one command.
+     * @param output Where query results are written.
+     * @throws IllegalArgumentException if the command is unknown, has the wrong arguments, or names a book or author that does not exist.
+     */
+    private void runCommand(String[] fields, PrintWriter output) {
+        String command = fields[0].trim();
+        if (command.equals("add-book")) {
+            requireArguments(fields, 4);
+            if ((fields.length - 5) % 2 != 0) {
+                throw new IllegalArgumentException("add-book needs a first and last name for each author");
+            }
+            Book book = new Book(fields[1], fields[2], parseEdition(fields[3]), fields[4]);
+            for (int i = 5; i < fields.length; i += 2) {
+                Author author = library.getAuthorByFullName(fields[i], fields[i + 1]);
+                if (author == null) {
+                    author = new Author(0, fields[i], fields[i + 1]);
+                    library.addAuthor(author);
+                }
+                if (!book.getAuthors().contains(author)) {
+                    book.getAuthors().add(author);
+                }
+            }
+            library.addBook(book);
+            // The authors only list the book once the library has accepted it.
+            if (library.getBookByIsbn(book.getIsbn()) == book) {
+                for (Author author : book.getAuthors()) {
+                    author.getBooks().add(book);
+                }
+            }
+        } else if (command.equals("update-book")) {
+            requireArguments(fields, 4);
+            Book book = findBook(fields[1]);
+            book.setTitle(fields[2]);
+            book.setEditionNumber(parseEdition(fields[3]));
+            book.setCopyRight(fields[4]);
+            library.updateBook(book);
+        } else if (command.equals("delete-book")) {
+            requireArguments(fields, 1);
+            library.deleteBook(findBook(fields[1]));
+        } else if (command.equals("add-author")) {
+            requireArguments(fields, 2);
+            library.addAuthor(new Author(0, fields[1], fields[2]));
+        } else if (command.equals("update-author")) {
+            requireArguments(fields, 4);
+            Author author = findAuthor(fields[1], fields[2]);
+            author.setFirstName(fields[3]);
+            author.setLastName(fields[4]);
+            library.updateAuthor(author);
+        } else if (command.equals("delete-author")) {
+            requireArguments(fields, 2);
+            library.deleteAuthor(findAuthor(fields[1], fields[2]));
+        } else if (command.equals("link")) {
+            requireArguments(fields, 3);
+            library.linkBookAndAuthor(findBook(fields[1]), findAuthor(fields[2], fields[3]));
+        } else if (command.equals("book")) {
+            requireArguments(fields, 1);
+            Book book = findBook(fields[1]);
+            output.print(book.getIsbn() + "\t" + book.getTitle() + "\t" + book.getEditionNumber() + "\t" + book.getCopyright());
+            for (Author author : book.getAuthors()) {
+                output.print("\t" + author.getFirstName() + " " + author.getLastName());
+            }
+            output.println();
+        } else if (command.equals("author")) {
+            requireArguments(fields, 2);
+            Author author = findAuthor(fields[1], fields[2]);
+            output.print(author.getAuthorId() + "\t" + author.getFirstName() + "\t" + author.getLastName());
+            for (Book book : author.getBooks()) {
+                output.print("\t" + book.getIsbn());
+            }
+            output.println();
+        } else {
+            throw new IllegalArgumentException("Unknown command: " + command);
+        }
+    }
+
+    private static void requireArguments(String[] fields, int count) {
+        if (fields.length < count + 1) {
+            throw new IllegalArgumentException(fields[0] + " needs " + count + " arguments");
+        }
+    }
+
+    private static int parseEdition(String edition) {
+        try {
+            return Integer.parseInt(edition.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid edition number: " + edition);
+        }
+    }
+
+    private Book findBook(String isbn) {
+        Book book = library.getBookByIsbn(isbn);
+        if (book == null) {
+            throw new IllegalArgumentException("No book with ISBN " + isbn);
+        }
+        return book;
+    }
+
+    private Author findAuthor(String firstName, String lastName) {
+        Author author = library.getAuthorByFullName(firstName, lastName);
+        if (author == null) {
+            throw new IllegalArgumentException("No author named " + firstName + " " + lastName);
+        }
+        return author;
+    }
+}
@@ -0,0 +1,115 @@
+package JMWJava3Assignment1;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Connects to the database in the background after the console app has started from a snapshot.
+ * If the catalog stamp no longer matches the snapshot, the catalog is read again and the snapshot is rewritten.
+ * The results are handed to the library by applyPending, which the menu loop calls between commands,
+ * so the library is only ever changed on the menu thread.
+ * @author john-michael woodrow
+ */
+public class SnapshotRefresher {
+    private final String dbUrl;
+    private final String username;
+    private final String password;
+    private final Path snapshotFile;
+    private final String snapshotStamp;
+
+    private volatile boolean done;
+    private volatile BookDatabaseManager dbManager;
+    private volatile List<Book> books;
+    private volatile List<Author> authors;
+    private volatile AuthorLinks links;
+    private volatile String error;
+    private volatile long latestChangeId = -1;
+
+    /**
+     * Creates a refresher for a library loaded from a snapshot.
+     * @param dbUrl The database URL.
+     * @param username The database username.
+     * @param password The database password.
+     * @param snapshotFile The snapshot file to rewrite when it is out of date.
+     * @param snapshotStamp The catalog stamp stored in the snapshot.
+     */
+    public SnapshotRefresher(String dbUrl, String username, String password, Path snapshotFile, String snapshotStamp) {
+        this.dbUrl = dbUrl;
+        this.username = username;
+        this.password = password;
+        this.snapshotFile = snapshotFile;
+        this.snapshotStamp = snapshotStamp;
+    }
+
+    /**
+     * Starts connecting and checking the snapshot on a background thread.
+     */
+    public void start() {
+        Thread thread = new Thread(this::refresh, "snapshot-refresh");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Connects, compares stamps and reads the catalog again if it changed.
+     */
+    private void refresh() {
+        try {
+            BookDatabaseManager manager = new BookDatabaseManager(dbUrl, username, password);
+            // Read before the stamp, so any change the stamp or the reload might miss comes after this ID.
+            long changeId = manager.getLatestChangeId();
+            String stamp = manager.getCatalogStamp();
+            if (!stamp.equals(snapshotStamp)) {
+                List<Book> freshBooks = manager.getAllBooks();
+                List<Author> freshAuthors = manager.getAllAuthors();
+                AuthorLinks freshLinks = manager.getAllRelationships();
+                Library fresh = new Library(manager, freshBooks, freshAuthors, freshLinks);
+                CatalogSnapshot.write(snapshotFile, stamp, fresh);
+                books = freshBooks;
+                authors = freshAuthors;
+                links = freshLinks;
+            }
+            latestChangeId = changeId;
+            dbManager = manager;
+        } catch (SQLException | IOException e) {
+            error = e.getMessage();
+        } finally {
+            done = true;
+        }
+    }
+
+    /**
+     * Retrieves the latest change ID at the time the database was connected. Changes after it are not in the library yet.
+     * @return The change ID, or -1 if the database has not been connected.
+     */
+    public long getLatestChangeId() {
+        return latestChangeId;
+    }
+
+    /**
+     * Connects the library to the database and swaps in the fresh catalog once the background work has finished.
+     * Does nothing if it is still running or has already been applied.
+     * @param library The library loaded from the snapshot.
+     */
+    public void applyPending(Library library) {
+        if (!done) {
+            return;
+        }
+        done = false;
+        if (error != null) {
+            System.err.println("Could not refresh the catalog from the database, using the snapshot: " + error);
+            error = null;
+            return;
+        }
+        if (books != null) {
+            library.replaceCatalog(books, authors, links);
+            System.out.println("The catalog changed since the snapshot was taken and has been reloaded from the database.");
+            books = null;
+            authors = null;
+            links = null;
+        }
+        library.setDatabaseManager(dbManager);
+    }
+}
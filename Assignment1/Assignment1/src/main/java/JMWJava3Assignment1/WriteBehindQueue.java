@@ -0,0 +1,636 @@
+package JMWJava3Assignment1;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes library changes to the database in the background, so the library does not wait for the database on every change.
+ * Changes are queued by the book's ISBN or the author's ID, and a change to something that already has a change
+ * waiting is merged into it: five edits of the same book become one update, and adding a book and deleting it again
+ * before it was written reaches the database as nothing at all.
+ * A writer thread takes up to BATCH_SIZE waiting changes at a time and writes them in one transaction on its own connection.
+ * If the transaction fails, its changes are written one at a time, and the ones the database rejects are reported and dropped.
+ * If the connection is lost instead, the changes that were not written go back to the front of the queue and are retried
+ * on a new connection, waiting longer after each failed attempt, so losing the database for a while loses no changes.
+ * The queue holds at most a fixed number of waiting changes; when it is full, new changes wait for the writer to catch up.
+ * @author john-michael woodrow
+ */
+public class WriteBehindQueue {
+    private static final int BATCH_SIZE = 500;
+    // How long the writer waits after the first change of a batch, so quick follow-up changes can be merged into it.
+    private static final long BATCH_DELAY_MILLIS = 50;
+    private static final long RECONNECT_DELAY_MILLIS = 5000;
+    private static final long MAX_RECONNECT_DELAY_MILLIS = 60_000;
+
+    private enum Kind { ADD_BOOK, UPDATE_BOOK, LINK_BOOK, DELETE_BOOK, REPLACE_BOOK, UPDATE_AUTHOR, DELETE_AUTHOR }
+
+    /**
+     * A waiting change. The book or author is a copy taken when the change was queued,
+     * so the writer never reads objects the library is still changing.
+     */
+    private static class PendingWrite {
+        private final String key;
+        private final long queuedAt;
+        private Kind kind;
+        private Book book;
+        private Author author;
+
+        private PendingWrite(String key, Kind kind, Book book, Author author) {
+            this.key = key;
+            this.kind = kind;
+            this.book = book;
+            this.author = author;
+            this.queuedAt = System.nanoTime();
+        }
+    }
+
+    private final String dbUrl;
+    private final String username;
+    private final String password;
+    private final int capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changesWaiting = lock.newCondition();
+    private final Condition spaceFreed = lock.newCondition();
+    private final Condition batchWritten = lock.newCondition();
+    private final Map<String, PendingWrite> pending = new LinkedHashMap<>();
+    private final Thread writer;
+
+    private BookDatabaseManager dbManager;
+    private int inFlight;
+    private long inFlightSince;
+    private boolean flushRequested;
+    private boolean closed;
+
+    private long queued;
+    private long merged;
+    private long written;
+    private long failed;
+    private long batches;
+    private long lastBatchMillis;
+
+    /**
+     * Creates a queue and starts its writer thread. The writer connects to the database when it writes its first batch.
+     * @param dbUrl The database URL.
+     * @param username The database username.
+     * @param password The database password.
+     * @param capacity The largest number of changes that may wait to be written.
+     */
+    public WriteBehindQueue(String dbUrl, String username, String password, int capacity) {
+        this.dbUrl = dbUrl;
+        this.username = username;
+        this.password = password;
+        this.capacity = capacity;
+        writer = new Thread(this::writeLoop, "write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues a new book and its links to its authors. The authors must already be in the database.
+     * @param book The book to add.
+     */
+    public void addBook(Book book) {
+        submit("book:" + book.getIsbn(), Kind.ADD_BOOK, copyOf(book), null);
+    }
+
+    /**
+     * Queues an update of a book's details.
+     * @param book The book holding the new details.
+     */
+    public void updateBook(Book book) {
+        submit("book:" + book.getIsbn(), Kind.UPDATE_BOOK, copyOf(book), null);
+    }
+
+    /**
+     * Queues new links between a book and its authors. Links the database already has are left alone,
+     * and the book's details are written as well.
+     * @param book The book, with every author it should be linked to.
+     */
+    public void linkBook(Book book) {
+        submit("book:" + book.getIsbn(), Kind.LINK_BOOK, copyOf(book), null);
+    }
+
+    /**
+     * Queues the deletion of a book and its links to its authors.
+     * @param book The book to delete.
+     */
+    public void deleteBook(Book book) {
+        submit("book:" + book.getIsbn(), Kind.DELETE_BOOK, copyOf(book), null);
+    }
+
+    /**
+     * Queues an update of an author's name.
+     * @param author The author holding the new name.
+     */
+    public void updateAuthor(Author author) {
+        submit("author:" + author.getAuthorId(), Kind.UPDATE_AUTHOR, null, copyOf(author));
+    }
+
+    /**
+     * Queues the deletion of an author.
+     * @param author The author to delete.
+     */
+    public void deleteAuthor(Author author) {
+        submit("author:" + author.getAuthorId(), Kind.DELETE_AUTHOR, null, copyOf(author));
+    }
+
+    /**
+     * Copies a book and its author IDs and names, without the authors' book lists.
+     */
+    private static Book copyOf(Book book) {
+        Book copy = new Book(book.getIsbn(), book.getTitle(), book.getEditionNumber(), book.getCopyright());
+        for (Author author : book.getAuthors()) {
+            copy.getAuthors().add(copyOf(author));
+        }
+        return copy;
+    }
+
+    /**
+     * Copies an author's ID and name, without the author's book list.
+     */
+    private static Author copyOf(Author author) {
+        return new Author(author.getAuthorId(), author.getFirstName(), author.getLastName());
+    }
+
+    /**
+     * Queues a change, merging it into a waiting change for the same key if there is one.
+     * Waits while the queue is full, unless the change can be merged.
+     */
+    private void submit(String key, Kind kind, Book book, Author author) {
+        lock.lock();
+        try {
+            while (true) {
+                if (closed) {
+                    throw new IllegalStateException("The write-behind queue has been closed");
+                }
+                PendingWrite existing = pending.get(key);
+                if (existing != null) {
+                    queued++;
+                    merged++;
+                    Kind result = merge(existing.kind, kind);
+                    if (result == null) {
+                        pending.remove(key);
+                        spaceFreed.signalAll();
+                    } else {
+                        existing.kind = result;
+                        existing.book = book;
+                        existing.author = author;
+                    }
+                    return;
+                }
+                if (pending.size() < capacity) {
+                    queued++;
+                    pending.put(key, new PendingWrite(key, kind, book, author));
+                    changesWaiting.signalAll();
+                    return;
+                }
+                spaceFreed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Works out the single change that has the same effect as one change followed by another.
+     * The merged change keeps the place of the first one, and the later copy of the book or author replaces the earlier one.
+     * @return The merged change, or null if the two cancel out.
+     */
+    private static Kind merge(Kind earlier, Kind later) {
+        switch (later) {
+            case UPDATE_BOOK:
+                // An update keeps a waiting add, replace or link, since they write the new details anyway.
+                return earlier;
+            case LINK_BOOK:
+                // Adds and replaces write all of the book's links, so only a waiting update needs to become a link.
+                return earlier == Kind.UPDATE_BOOK ? Kind.LINK_BOOK : earlier;
+            case DELETE_BOOK:
+                // A book that was never written does not need to be deleted.
+                return earlier == Kind.ADD_BOOK ? null : Kind.DELETE_BOOK;
+            case ADD_BOOK:
+                // Adding a book that is in the database, or is about to be deleted from it, replaces its row and links.
+                return earlier == Kind.ADD_BOOK ? Kind.ADD_BOOK : Kind.REPLACE_BOOK;
+            case UPDATE_AUTHOR:
+                return earlier;
+            default:
+                return Kind.DELETE_AUTHOR;
+        }
+    }
+
+    /**
+     * Waits until every change queued so far has been written or has failed.
+     * @param timeoutMillis The longest time to wait.
+     * @return true if every change was handled, false if the time ran out first.
+     */
+    public boolean flush(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        lock.lock();
+        try {
+            while (!pending.isEmpty() || inFlight > 0) {
+                flushRequested = true;
+                changesWaiting.signalAll();
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    batchWritten.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the waiting changes, stops the writer thread and closes its connection.
+     * Changes that could not be written in time are reported.
+     * @param timeoutMillis The longest time to wait for the waiting changes to be written.
+     */
+    public void close(long timeoutMillis) {
+        if (!flush(timeoutMillis)) {
+            System.err.println("Write-behind: " + getQueueDepth() + " changes were not written to the database");
+        }
+        lock.lock();
+        try {
+            closed = true;
+            changesWaiting.signalAll();
+            spaceFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs on the writer thread: takes batches of waiting changes and writes them until the queue is closed.
+     */
+    private void writeLoop() {
+        long retryDelay = RECONNECT_DELAY_MILLIS;
+        try {
+            while (true) {
+                List<PendingWrite> batch = takeBatch();
+                if (batch == null) {
+                    return;
+                }
+                List<PendingWrite> unwritten = connect() ? write(batch) : batch;
+                if (!unwritten.isEmpty()) {
+                    putBack(unwritten);
+                    if (isClosed()) {
+                        // close has already reported the changes that are still waiting.
+                        return;
+                    }
+                    sleep(retryDelay);
+                    retryDelay = Math.min(retryDelay * 2, MAX_RECONNECT_DELAY_MILLIS);
+                    continue;
+                }
+                retryDelay = RECONNECT_DELAY_MILLIS;
+                lock.lock();
+                try {
+                    inFlight = 0;
+                    batchWritten.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } finally {
+            if (dbManager != null) {
+                dbManager.close();
+            }
+        }
+    }
+
+    /**
+     * Waits for changes and removes up to BATCH_SIZE of them from the queue, oldest first.
+     * @return The batch, or null once the queue is closed and empty.
+     */
+    private List<PendingWrite> takeBatch() {
+        lock.lock();
+        try {
+            while (pending.isEmpty()) {
+                if (closed) {
+                    return null;
+                }
+                changesWaiting.awaitUninterruptibly();
+            }
+            // Give follow-up changes a moment to be merged, unless someone is waiting for the queue to empty.
+            long delay = TimeUnit.MILLISECONDS.toNanos(BATCH_DELAY_MILLIS);
+            while (delay > 0 && !flushRequested && !closed && pending.size() < Math.min(BATCH_SIZE, capacity)) {
+                try {
+                    delay = changesWaiting.awaitNanos(delay);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+            flushRequested = false;
+
+            List<PendingWrite> batch = new ArrayList<>(Math.min(pending.size(), BATCH_SIZE));
+            Iterator<PendingWrite> it = pending.values().iterator();
+            while (it.hasNext() && batch.size() < BATCH_SIZE) {
+                batch.add(it.next());
+                it.remove();
+            }
+            inFlight = batch.size();
+            inFlightSince = batch.get(0).queuedAt;
+            spaceFreed.signalAll();
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a batch that could not be written to the front of the queue, merging it with any newer changes to the same keys.
+     */
+    private void putBack(List<PendingWrite> batch) {
+        lock.lock();
+        try {
+            Map<String, PendingWrite> newer = new LinkedHashMap<>(pending);
+            pending.clear();
+            for (PendingWrite write : batch) {
+                pending.put(write.key, write);
+            }
+            for (PendingWrite write : newer.values()) {
+                PendingWrite earlier = pending.get(write.key);
+                if (earlier == null) {
+                    pending.put(write.key, write);
+                    continue;
+                }
+                Kind result = merge(earlier.kind, write.kind);
+                if (result == null) {
+                    pending.remove(write.key);
+                } else {
+                    earlier.kind = result;
+                    earlier.book = write.book;
+                    earlier.author = write.author;
+                }
+            }
+            inFlight = 0;
+            batchWritten.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Opens the writer's connection if it is not open yet.
+     * @return true if the writer is connected.
+     */
+    private boolean connect() {
+        if (dbManager == null) {
+            try {
+                dbManager = new BookDatabaseManager(dbUrl, username, password);
+            } catch (SQLException e) {
+                System.err.println("Write-behind could not connect to the database, retrying: " + e.getMessage());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isClosed() {
+        lock.lock();
+        try {
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes a batch in one transaction. If that fails, writes each change in its own transaction so one bad change
+     * does not stop the others, and a change the database rejects part way through leaves none of its statements behind.
+     * A change the database rejects is dropped, but if the connection is lost,
+     * the change and the ones after it are returned to be retried on a new connection.
+     * @return The changes that were not written because the connection was lost.
+     */
+    private List<PendingWrite> write(List<PendingWrite> batch) {
+        long start = System.nanoTime();
+        List<PendingWrite> unwritten = List.of();
+        int succeeded = 0;
+        int errors = 0;
+        try {
+            dbManager.runInTransaction(() -> {
+                for (PendingWrite write : batch) {
+                    apply(write);
+                }
+            });
+            succeeded = batch.size();
+        } catch (SQLException e) {
+            for (int i = 0; i < batch.size(); i++) {
+                PendingWrite write = batch.get(i);
+                try {
+                    dbManager.runInTransaction(() -> apply(write));
+                    succeeded++;
+                } catch (SQLException ex) {
+                    if (isConnectionError(ex)) {
+                        unwritten = new ArrayList<>(batch.subList(i, batch.size()));
+                        System.err.println("Write-behind lost its database connection, " + unwritten.size()
+                                + " changes will be retried: " + ex.getMessage());
+                        dbManager.close();
+                        dbManager = null;
+                        break;
+                    }
+                    errors++;
+                    System.err.println("Write-behind could not write " + write.key + ": " + ex.getMessage());
+                }
+            }
+        }
+        lock.lock();
+        try {
+            written += succeeded;
+            failed += errors;
+            batches++;
+            lastBatchMillis = (System.nanoTime() - start) / 1_000_000;
+        } finally {
+            lock.unlock();
+        }
+        return unwritten;
+    }
+
+    /**
+     * Tells a lost or broken connection apart from the database rejecting a change.
+     * SQL state class 08 is a connection exception; when the driver does not say, the connection is checked.
+     */
+    private boolean isConnectionError(SQLException e) {
+        if (e instanceof SQLRecoverableException || e instanceof SQLTransientConnectionException
+                || e instanceof SQLNonTransientConnectionException) {
+            return true;
+        }
+        if (e.getSQLState() != null && e.getSQLState().startsWith("08")) {
+            return true;
+        }
+        return !dbManager.isConnected();
+    }
+
+    /**
+     * Writes one change with the matching database manager call.
+     */
+    private void apply(PendingWrite write) throws SQLException {
+        switch (write.kind) {
+            case ADD_BOOK:
+                dbManager.addBook(write.book);
+                break;
+            case UPDATE_BOOK:
+                dbManager.updateBook(write.book);
+                break;
+            case LINK_BOOK:
+                dbManager.updateBook(write.book);
+                for (Author author : write.book.getAuthors()) {
+                    dbManager.addBookAuthor(write.book, author);
+                }
+                break;
+            case DELETE_BOOK:
+                dbManager.deleteBook(write.book);
+                break;
+            case REPLACE_BOOK:
+                dbManager.deleteBook(write.book);
+                dbManager.addBook(write.book);
+                break;
+            case UPDATE_AUTHOR:
+                dbManager.updateAuthor(write.author);
+                break;
+            default:
+                dbManager.deleteAuthor(write.author);
+                break;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Retrieves the number of changes waiting to be written, including the batch being written.
+     * @return The queue depth.
+     */
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return pending.size() + inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves how long the oldest change that has not been written yet has been waiting.
+     * @return The lag in milliseconds, or 0 if every change has been written.
+     */
+    public long getLagMillis() {
+        lock.lock();
+        try {
+            long oldest;
+            if (inFlight > 0) {
+                oldest = inFlightSince;
+            } else if (!pending.isEmpty()) {
+                oldest = pending.values().iterator().next().queuedAt;
+            } else {
+                return 0;
+            }
+            return (System.nanoTime() - oldest) / 1_000_000;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves how many changes have been queued, including those merged into waiting changes.
+     * @return The number of changes queued.
+     */
+    public long getQueuedCount() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves how many changes were merged into a waiting change instead of being written on their own.
+     * @return The number of merged changes.
+     */
+    public long getMergedCount() {
+        lock.lock();
+        try {
+            return merged;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves how many changes have been written to the database.
+     * @return The number of changes written.
+     */
+    public long getWrittenCount() {
+        lock.lock();
+        try {
+            return written;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves how many changes the database rejected. They were dropped.
+     * @return The number of failed changes.
+     */
+    public long getFailedCount() {
+        lock.lock();
+        try {
+            return failed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves how many batches the writer has written.
+     * @return The number of batches.
+     */
+    public long getBatchCount() {
+        lock.lock();
+        try {
+            return batches;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves how long the last batch took to write.
+     * @return The duration in milliseconds.
+     */
+    public long getLastBatchMillis() {
+        lock.lock();
+        try {
+            return lastBatchMillis;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
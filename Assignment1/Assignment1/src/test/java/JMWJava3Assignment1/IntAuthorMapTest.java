@@ -0,0 +1,161 @@
+package JMWJava3Assignment1;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that IntAuthorMap behaves like a LinkedHashMap keyed by author ID
+ */
+class IntAuthorMapTest {
+
+    @Test
+    void putReplaceRemoveAndPutAgain() {
+        IntAuthorMap map = new IntAuthorMap();
+        Author first = new Author(7, "Paul", "Deitel");
+        Author replacement = new Author(7, "Harvey", "Deitel");
+
+        assertNull(map.put(7, first));
+        assertSame(first, map.get(7));
+        assertSame(first, map.put(7, replacement));
+        assertSame(replacement, map.get(7));
+        assertEquals(1, map.size());
+
+        assertSame(replacement, map.remove(7));
+        assertNull(map.remove(7));
+        assertNull(map.get(7));
+        assertFalse(map.containsKey(7));
+        assertEquals(0, map.size());
+
+        assertNull(map.put(7, first));
+        assertSame(first, map.get(7));
+        assertTrue(map.containsKey(7));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void keepsInsertionOrderAndReplacesInPlace() {
+        IntAuthorMap map = new IntAuthorMap();
+        Author a = new Author(30, "A", "A");
+        Author b = new Author(10, "B", "B");
+        Author c = new Author(20, "C", "C");
+        Author newB = new Author(10, "B2", "B2");
+        map.put(30, a);
+        map.put(10, b);
+        map.put(20, c);
+
+        map.put(10, newB);
+        assertEquals(List.of(a, newB, c), map.values());
+
+        // A removed author that is put again goes to the end, as it does in a LinkedHashMap.
+        map.remove(30);
+        map.put(30, a);
+        assertEquals(List.of(newB, c, a), map.values());
+    }
+
+    @Test
+    void handlesZeroAndNegativeIds() {
+        IntAuthorMap map = new IntAuthorMap();
+        Author zero = new Author(0, "Zero", "Zero");
+        Author negative = new Author(-1, "Negative", "Negative");
+        map.put(0, zero);
+        map.put(-1, negative);
+
+        assertSame(zero, map.get(0));
+        assertSame(negative, map.get(-1));
+        assertNull(map.get(1));
+    }
+
+    @Test
+    void positionsFollowTheEntriesUntilTheNextChange() {
+        IntAuthorMap map = new IntAuthorMap();
+        for (int id = 1; id <= 5; id++) {
+            map.put(id, new Author(id, "F" + id, "L" + id));
+        }
+        map.remove(2);
+
+        assertEquals(-1, map.indexOf(2));
+        assertEquals(5, map.positions());
+        assertNull(map.authorAt(1));
+        for (int id : new int[] {1, 3, 4, 5}) {
+            assertEquals(id, map.authorAt(map.indexOf(id)).getAuthorId());
+        }
+    }
+
+    @Test
+    void staysCorrectWhenGrowingAfterManyRemovals() {
+        IntAuthorMap map = new IntAuthorMap(4);
+        Map<Integer, Author> expected = new LinkedHashMap<>();
+        // Every round leaves removed slots behind, so growth has to squeeze them out and rebuild the table.
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 500; i++) {
+                int id = round * 500 + i;
+                Author author = new Author(id, "F", "L");
+                map.put(id, author);
+                expected.put(id, author);
+            }
+            for (int i = 0; i < 450; i++) {
+                int id = round * 500 + i;
+                assertSame(expected.remove(id), map.remove(id));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        assertEquals(new ArrayList<>(expected.values()), map.values());
+        for (Map.Entry<Integer, Author> entry : expected.entrySet()) {
+            assertSame(entry.getValue(), map.get(entry.getKey()));
+        }
+        assertNull(map.get(0));
+    }
+
+    @Test
+    void clearEmptiesTheMapAndKeepsItUsable() {
+        IntAuthorMap map = new IntAuthorMap();
+        map.put(1, new Author(1, "A", "A"));
+        map.put(2, new Author(2, "B", "B"));
+        map.clear();
+
+        assertEquals(0, map.size());
+        assertNull(map.get(1));
+        assertTrue(map.values().isEmpty());
+
+        Author c = new Author(3, "C", "C");
+        map.put(3, c);
+        assertEquals(List.of(c), map.values());
+    }
+
+    @Test
+    void matchesALinkedHashMapUnderRandomOperations() {
+        Random random = new Random(1);
+        for (int round = 0; round < 20; round++) {
+            IntAuthorMap map = new IntAuthorMap(random.nextInt(5));
+            Map<Integer, Author> expected = new LinkedHashMap<>();
+            int range = 1 + random.nextInt(2000);
+            for (int step = 0; step < 20_000; step++) {
+                int id = random.nextInt(range) - range / 4;
+                int operation = random.nextInt(10);
+                if (operation < 5) {
+                    Author author = new Author(id, "F", "L");
+                    assertSame(expected.put(id, author), map.put(id, author));
+                } else if (operation < 8) {
+                    assertSame(expected.remove(id), map.remove(id));
+                } else {
+                    assertSame(expected.get(id), map.get(id));
+                    assertEquals(expected.containsKey(id), map.containsKey(id));
+                }
+                assertEquals(expected.size(), map.size());
+            }
+            assertEquals(new ArrayList<>(expected.values()), map.values());
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package JMWJava3Assignment1;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that IsbnBookMap behaves like a LinkedHashMap keyed by ISBN, for packed and unpacked ISBNs alike
+ */
+class IsbnBookMapTest {
+
+    @Test
+    void putReplaceRemoveAndPutAgain() {
+        IsbnBookMap map = new IsbnBookMap();
+        Book first = book("9780132575669");
+        Book replacement = book("9780132575669");
+
+        assertNull(map.put(first));
+        assertSame(first, map.get("9780132575669"));
+        assertSame(first, map.put(replacement));
+        assertSame(replacement, map.get("9780132575669"));
+        assertEquals(1, map.size());
+
+        assertSame(replacement, map.remove("9780132575669"));
+        assertNull(map.remove("9780132575669"));
+        assertNull(map.get("9780132575669"));
+        assertFalse(map.containsKey("9780132575669"));
+        assertEquals(0, map.size());
+
+        assertNull(map.put(first));
+        assertSame(first, map.get("9780132575669"));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void keepsInsertionOrderAndReplacesInPlace() {
+        IsbnBookMap map = new IsbnBookMap();
+        Book a = book("300");
+        Book b = book("100");
+        Book c = book("013257566X");
+        Book newB = book("100");
+        map.put(a);
+        map.put(b);
+        map.put(c);
+
+        map.put(newB);
+        assertSameBooks(List.of(a, newB, c), map.values());
+
+        // A removed book that is put again goes to the end, as it does in a LinkedHashMap.
+        map.remove("300");
+        map.put(a);
+        assertSameBooks(List.of(newB, c, a), map.values());
+    }
+
+    @Test
+    void leadingZerosMakeDifferentIsbns() {
+        IsbnBookMap map = new IsbnBookMap();
+        Book withZero = book("0132575663");
+        Book withoutZero = book("132575663");
+        map.put(withZero);
+        map.put(withoutZero);
+
+        assertEquals(2, map.size());
+        assertSame(withZero, map.get("0132575663"));
+        assertSame(withoutZero, map.get("132575663"));
+        assertEquals("0132575663", withZero.getIsbn());
+    }
+
+    @Test
+    void unpackedIsbnsThatCollideWithPackedOnesAreKeptApart() {
+        // "2" packs to 2 * 32 + 1 = 65, and "A".hashCode() is 65, so both start probing at the same slot.
+        assertEquals(Long.hashCode(Book.packIsbn("2")), "A".hashCode());
+        IsbnBookMap map = new IsbnBookMap();
+        Book packed = book("2");
+        Book unpacked = book("A");
+        // 18 digits is one more than fits in a long, so this ISBN is kept as text although it is all digits.
+        Book longDigits = book("123456789012345678");
+        Book shortDigits = book("12345678901234567");
+        Book hyphenated = book("978-0-13-257566-9");
+        map.put(packed);
+        map.put(unpacked);
+        map.put(longDigits);
+        map.put(shortDigits);
+        map.put(hyphenated);
+
+        assertEquals(Book.NOT_PACKED, longDigits.getIsbnCode());
+        assertNotEquals(Book.NOT_PACKED, shortDigits.getIsbnCode());
+        assertSame(packed, map.get("2"));
+        assertSame(unpacked, map.get("A"));
+        assertSame(longDigits, map.get("123456789012345678"));
+        assertSame(shortDigits, map.get("12345678901234567"));
+        assertSame(hyphenated, map.get("978-0-13-257566-9"));
+        assertNull(map.get("9780132575669"));
+
+        assertSame(packed, map.remove("2"));
+        assertNull(map.get("2"));
+        assertSame(unpacked, map.get("A"));
+        assertSame(unpacked, map.remove("A"));
+        assertNull(map.get("A"));
+
+        map.put(unpacked);
+        map.put(packed);
+        assertSame(packed, map.get("2"));
+        assertSame(unpacked, map.get("A"));
+        assertEquals(5, map.size());
+    }
+
+    @Test
+    void staysCorrectWhenGrowingAfterManyRemovals() {
+        IsbnBookMap map = new IsbnBookMap(4);
+        Map<String, Book> expected = new LinkedHashMap<>();
+        // Every round leaves removed slots behind, so growth has to squeeze them out and rebuild the table.
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 500; i++) {
+                Book book = book(isbn(round * 500 + i));
+                map.put(book);
+                expected.put(book.getIsbn(), book);
+            }
+            for (int i = 0; i < 450; i++) {
+                String isbn = isbn(round * 500 + i);
+                assertSame(expected.remove(isbn), map.remove(isbn));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        assertSameBooks(new ArrayList<>(expected.values()), map.values());
+        for (Map.Entry<String, Book> entry : expected.entrySet()) {
+            assertSame(entry.getValue(), map.get(entry.getKey()));
+        }
+        assertNull(map.get(isbn(0)));
+    }
+
+    @Test
+    void clearEmptiesTheMapAndKeepsItUsable() {
+        IsbnBookMap map = new IsbnBookMap();
+        map.put(book("1"));
+        map.put(book("X2"));
+        map.clear();
+
+        assertEquals(0, map.size());
+        assertNull(map.get("1"));
+        assertNull(map.get("X2"));
+        assertTrue(map.values().isEmpty());
+
+        Book c = book("3");
+        map.put(c);
+        assertSameBooks(List.of(c), map.values());
+    }
+
+    @Test
+    void matchesALinkedHashMapUnderRandomOperations() {
+        Random random = new Random(3);
+        for (int round = 0; round < 20; round++) {
+            IsbnBookMap map = new IsbnBookMap(random.nextInt(4));
+            Map<String, Book> expected = new LinkedHashMap<>();
+            int range = 1 + random.nextInt(3000);
+            for (int step = 0; step < 20_000; step++) {
+                int n = random.nextInt(range);
+                // A mix of packed ISBNs, packed ISBNs with leading zeros, and ISBNs kept as text.
+                String isbn = n % 7 == 0 ? "X" + n : n % 5 == 0 ? String.format("%05d", n) : Integer.toString(n);
+                int operation = random.nextInt(10);
+                if (operation < 5) {
+                    Book book = book(isbn);
+                    assertSame(expected.put(isbn, book), map.put(book));
+                } else if (operation < 8) {
+                    assertSame(expected.remove(isbn), map.remove(isbn));
+                } else {
+                    assertSame(expected.get(isbn), map.get(isbn));
+                    assertEquals(expected.containsKey(isbn), map.containsKey(isbn));
+                }
+                assertEquals(expected.size(), map.size());
+            }
+            assertSameBooks(new ArrayList<>(expected.values()), map.values());
+        }
+    }
+
+    private static Book book(String isbn) {
+        return new Book(isbn, "Title " + isbn, 1, "2020");
+    }
+
+    private static String isbn(int n) {
+        return String.format("978%010d", n);
+    }
+
+    /**
+     * Books are equal when their ISBNs are, so lists are compared by identity to tell a replaced book from its replacement.
+     */
+    private static void assertSameBooks(List<Book> expected, List<Book> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), actual.get(i));
+        }
+    }
+}
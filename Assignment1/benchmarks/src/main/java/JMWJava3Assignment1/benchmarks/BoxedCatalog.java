@@ -0,0 +1,80 @@
+package JMWJava3Assignment1.benchmarks;
+
+import JMWJava3Assignment1.Author;
+import JMWJava3Assignment1.AuthorLinks;
+import JMWJava3Assignment1.Book;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The catalog as Library held it before authors moved to an IntAuthorMap and links to AuthorLinks:
+ * authors in a LinkedHashMap with boxed Integer keys, one object per authorISBN row,
+ * and book and author lists grown one link at a time. Kept as the baseline the benchmarks compare against.
+ * @author john-michael woodrow
+ */
+public class BoxedCatalog {
+    /**
+     * One row of the authorISBN table, as it used to be read.
+     */
+    static class Row {
+        final int authorId;
+        final String isbn;
+
+        Row(int authorId, String isbn) {
+            this.authorId = authorId;
+            this.isbn = isbn;
+        }
+    }
+
+    final Map<String, Book> booksByIsbn = new LinkedHashMap<>();
+    final Map<Integer, Author> authorsById = new LinkedHashMap<>();
+    final Map<String, Author> authorsByName = new HashMap<>();
+    final Map<Integer, String> nameKeysById = new HashMap<>();
+
+    /**
+     * Builds and links the catalog the way Library used to.
+     * @param books All books, without authors.
+     * @param authors All authors, without books.
+     * @param links All links.
+     */
+    BoxedCatalog(List<Book> books, List<Author> authors, AuthorLinks links) {
+        List<Row> rows = toRows(links);
+        for (Book book : books) {
+            booksByIsbn.put(book.getIsbn(), book);
+        }
+        for (Author author : authors) {
+            authorsById.put(author.getAuthorId(), author);
+            String key = author.getFirstName().toLowerCase(Locale.ROOT) + '\t' + author.getLastName().toLowerCase(Locale.ROOT);
+            nameKeysById.put(author.getAuthorId(), key);
+            authorsByName.putIfAbsent(key, author);
+        }
+        for (Row row : rows) {
+            Book book = booksByIsbn.get(row.isbn);
+            Author author = authorsById.get(row.authorId);
+            if (book != null && author != null && !book.getAuthors().contains(author)) {
+                book.getAuthors().add(author);
+                author.getBooks().add(book);
+            }
+        }
+    }
+
+    /**
+     * Copies links into one object per row, as getAllRelationships used to return them.
+     */
+    static List<Row> toRows(AuthorLinks links) {
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < links.size(); i++) {
+            rows.add(new Row(links.getAuthorId(i), links.getIsbn(i)));
+        }
+        return rows;
+    }
+
+    Author getAuthorById(int authorId) {
+        return authorsById.get(authorId);
+    }
+}
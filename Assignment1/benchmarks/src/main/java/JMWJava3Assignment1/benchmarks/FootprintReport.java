@@ -0,0 +1,77 @@
+package JMWJava3Assignment1.benchmarks;
+
+import JMWJava3Assignment1.Author;
+import JMWJava3Assignment1.AuthorLinks;
+import JMWJava3Assignment1.Book;
+import JMWJava3Assignment1.Library;
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prints the retained heap of Library and of the boxed baseline (BoxedCatalog) for generated catalogs,
+ * measured with JOL, and the heap per link of the links as they are read from the database.
+ * Both catalogs hold equal books, authors and strings, so the difference is the cost of the maps and link lists.
+ * It also compares the heap per title and per author of Book and Author, with their packed ISBNs, short copyright years
+ * and shared names, against the same records stored as plain strings (PlainRecords).
+ * Pass the book counts to measure, for example 10000 100000.
+ * @author john-michael woodrow
+ */
+public class FootprintReport {
+
+    public static void main(String[] args) {
+        String[] sizes = args.length > 0 ? args : new String[] {"10000", "100000"};
+        for (String size : sizes) {
+            int bookCount = Integer.parseInt(size);
+            GeneratedCatalog catalog = new GeneratedCatalog(bookCount);
+            int links = catalog.links.size();
+
+            Library library = new Library(null, catalog.copyBooks(), catalog.copyAuthors(), catalog.links);
+            BoxedCatalog boxed = new BoxedCatalog(catalog.copyBooks(), catalog.copyAuthors(), catalog.links);
+            long librarySize = GraphLayout.parseInstance(library).totalSize();
+            long boxedSize = GraphLayout.parseInstance(boxed).totalSize();
+
+            // The ISBN strings are shared with the books, so leave them out and count only what each link adds.
+            long linkArraysSize = GraphLayout.parseInstance(catalog.links).totalSize() - stringsSize(catalog.links);
+            List<BoxedCatalog.Row> rows = BoxedCatalog.toRows(catalog.links);
+            long rowsSize = GraphLayout.parseInstance(rows).totalSize() - stringsSize(catalog.links);
+
+            System.out.printf("%d books, %d authors, %d links%n", bookCount, catalog.authors.size(), links);
+            System.out.printf("  catalog  Library %,d bytes, boxed %,d bytes, %.1f fewer bytes per link%n",
+                    librarySize, boxedSize, (double) (boxedSize - librarySize) / links);
+            System.out.printf("  rows     AuthorLinks %.1f bytes per link, one object per row %.1f bytes per link%n",
+                    (double) linkArraysSize / links, (double) rowsSize / links);
+
+            List<PlainRecords.PlainBook> plainBooks = new ArrayList<>(bookCount);
+            for (Book book : catalog.books) {
+                plainBooks.add(new PlainRecords.PlainBook(book.getIsbn(), book.getTitle(), book.getEditionNumber(), book.getCopyright()));
+            }
+            List<PlainRecords.PlainAuthor> plainAuthors = new ArrayList<>(catalog.authors.size());
+            for (Author author : catalog.authors) {
+                plainAuthors.add(new PlainRecords.PlainAuthor(author.getAuthorId(),
+                        new String(author.getFirstName()), new String(author.getLastName())));
+            }
+            List<Book> books = catalog.copyBooks();
+            List<Author> authors = catalog.copyAuthors();
+            System.out.printf("  titles   Book %.1f bytes per title, plain strings %.1f bytes per title%n",
+                    (double) GraphLayout.parseInstance(books).totalSize() / bookCount,
+                    (double) GraphLayout.parseInstance(plainBooks).totalSize() / bookCount);
+            System.out.printf("  authors  Author %.1f bytes per author, plain strings %.1f bytes per author%n",
+                    (double) GraphLayout.parseInstance(authors).totalSize() / authors.size(),
+                    (double) GraphLayout.parseInstance(plainAuthors).totalSize() / authors.size());
+        }
+    }
+
+    /**
+     * Retrieves the size of the distinct ISBN strings the links refer to.
+     */
+    private static long stringsSize(AuthorLinks links) {
+        Object[] isbns = new Object[links.size()];
+        for (int i = 0; i < isbns.length; i++) {
+            isbns[i] = links.getIsbn(i);
+        }
+        return GraphLayout.parseInstance((Object) isbns).totalSize() - ClassLayout.parseInstance(isbns).instanceSize();
+    }
+}
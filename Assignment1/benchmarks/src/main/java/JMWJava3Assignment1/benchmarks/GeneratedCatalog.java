@@ -0,0 +1,81 @@
+package JMWJava3Assignment1.benchmarks;
+
+import JMWJava3Assignment1.Author;
+import JMWJava3Assignment1.AuthorLinks;
+import JMWJava3Assignment1.Book;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A generated catalog shaped like the real one: one author for every two books,
+ * and one to three authors per book, so some authors have many books.
+ * Author names are drawn from small pools of first and last names, so many authors share a name, as they do in a real catalog.
+ * Every value is a new String instance, as it would be when read from the database.
+ * The same seed always generates the same catalog.
+ * @author john-michael woodrow
+ */
+public class GeneratedCatalog {
+    private static final int FIRST_NAMES = 300;
+    private static final int LAST_NAMES = 2000;
+
+    final List<Book> books;
+    final List<Author> authors;
+    final AuthorLinks links;
+
+    /**
+     * Generates a catalog.
+     * @param bookCount The number of books.
+     */
+    public GeneratedCatalog(int bookCount) {
+        Random random = new Random(42);
+        int authorCount = Math.max(1, bookCount / 2);
+        books = new ArrayList<>(bookCount);
+        authors = new ArrayList<>(authorCount);
+        links = new AuthorLinks(bookCount * 2);
+
+        for (int i = 1; i <= authorCount; i++) {
+            authors.add(new Author(i, "First" + random.nextInt(FIRST_NAMES), "Last" + random.nextInt(LAST_NAMES)));
+        }
+        for (int i = 0; i < bookCount; i++) {
+            String isbn = isbn(i);
+            books.add(new Book(isbn, "Title " + i, 1 + i % 5, String.valueOf(1990 + i % 35)));
+            int authorsOfBook = 1 + random.nextInt(3);
+            for (int j = 0; j < authorsOfBook; j++) {
+                // Squaring the random number skews the links towards low author IDs, like prolific authors.
+                double skew = random.nextDouble();
+                links.add(1 + (int) (skew * skew * authorCount), isbn);
+            }
+        }
+    }
+
+    /**
+     * Builds the ISBN of the book at a position.
+     */
+    static String isbn(int i) {
+        return String.format("978%010d", i);
+    }
+
+    /**
+     * Creates fresh copies of the books, without authors.
+     */
+    List<Book> copyBooks() {
+        List<Book> copies = new ArrayList<>(books.size());
+        for (Book book : books) {
+            copies.add(new Book(book.getIsbn(), book.getTitle(), book.getEditionNumber(), book.getCopyright()));
+        }
+        return copies;
+    }
+
+    /**
+     * Creates fresh copies of the authors, without books.
+     */
+    List<Author> copyAuthors() {
+        List<Author> copies = new ArrayList<>(authors.size());
+        for (Author author : authors) {
+            copies.add(new Author(author.getAuthorId(), author.getFirstName(), author.getLastName()));
+        }
+        return copies;
+    }
+}
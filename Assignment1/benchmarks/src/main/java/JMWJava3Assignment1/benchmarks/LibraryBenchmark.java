@@ -0,0 +1,96 @@
+package JMWJava3Assignment1.benchmarks;
+
+import JMWJava3Assignment1.Author;
+import JMWJava3Assignment1.AuthorLinks;
+import JMWJava3Assignment1.Library;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares Library, which keeps authors in an IntAuthorMap and reads links into AuthorLinks,
+ * with the boxed maps and per-row objects it used before (BoxedCatalog).
+ * The hydrate benchmarks build and link a whole catalog from rows already in memory, including copying the rows,
+ * as reading them from the database would. The lookup benchmarks find LOOKUPS authors by ID.
+ * Run with the GC profiler (BenchmarkRunner adds it) to compare gc.alloc.rate.norm.
+ * @author john-michael woodrow
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class LibraryBenchmark {
+    private static final int LOOKUPS = 1024;
+
+    @State(Scope.Benchmark)
+    public static class Catalog {
+        @Param({"10000", "100000"})
+        public int bookCount;
+
+        GeneratedCatalog catalog;
+        Library library;
+        BoxedCatalog boxed;
+        int[] authorIds;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            catalog = new GeneratedCatalog(bookCount);
+            library = new Library(null, catalog.copyBooks(), catalog.copyAuthors(), catalog.links);
+            boxed = new BoxedCatalog(catalog.copyBooks(), catalog.copyAuthors(), catalog.links);
+            Random random = new Random(7);
+            authorIds = new int[LOOKUPS];
+            for (int i = 0; i < LOOKUPS; i++) {
+                // Most IDs are above the Integer cache, as they are in a catalog of any size.
+                authorIds[i] = 1 + random.nextInt(catalog.authors.size());
+            }
+        }
+
+        AuthorLinks copyLinks() {
+            AuthorLinks links = new AuthorLinks();
+            for (int i = 0; i < catalog.links.size(); i++) {
+                links.add(catalog.links.getAuthorId(i), catalog.links.getIsbn(i));
+            }
+            return links;
+        }
+    }
+
+    @Benchmark
+    public Library hydrateLibrary(Catalog state) {
+        return new Library(null, state.catalog.copyBooks(), state.catalog.copyAuthors(), state.copyLinks());
+    }
+
+    @Benchmark
+    public BoxedCatalog hydrateBoxed(Catalog state) {
+        return new BoxedCatalog(state.catalog.copyBooks(), state.catalog.copyAuthors(), state.catalog.links);
+    }
+
+    @Benchmark
+    public void lookupLibrary(Catalog state, Blackhole blackhole) {
+        for (int authorId : state.authorIds) {
+            Author author = state.library.getAuthorById(authorId);
+            blackhole.consume(author);
+        }
+    }
+
+    @Benchmark
+    public void lookupBoxed(Catalog state, Blackhole blackhole) {
+        for (int authorId : state.authorIds) {
+            Author author = state.boxed.getAuthorById(authorId);
+            blackhole.consume(author);
+        }
+    }
+}
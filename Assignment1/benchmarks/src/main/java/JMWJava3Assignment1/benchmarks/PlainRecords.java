@@ -0,0 +1,40 @@
+package JMWJava3Assignment1.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Book and Author as they were stored before the compact encoding: every field that is text in the database
+ * is a String of its own. Kept as the baseline FootprintReport compares against.
+ * @author john-michael woodrow
+ */
+public class PlainRecords {
+
+    static class PlainBook {
+        final String isbn;
+        final String title;
+        final int editionNumber;
+        final String copyright;
+        final List<Object> authorList = new ArrayList<>();
+
+        PlainBook(String isbn, String title, int editionNumber, String copyright) {
+            this.isbn = isbn;
+            this.title = title;
+            this.editionNumber = editionNumber;
+            this.copyright = copyright;
+        }
+    }
+
+    static class PlainAuthor {
+        final int authorId;
+        final String firstName;
+        final String lastName;
+        final List<Object> bookList = new ArrayList<>();
+
+        PlainAuthor(int authorId, String firstName, String lastName) {
+            this.authorId = authorId;
+            this.firstName = firstName;
+            this.lastName = lastName;
+        }
+    }
+}
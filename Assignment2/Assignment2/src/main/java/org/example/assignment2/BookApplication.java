@@ -3,6 +3,7 @@ package org.example.assignment2;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.Properties;
 import java.util.Scanner;
 
@@ -14,17 +15,15 @@ import java.util.Scanner;
  */
 
 public class BookApplication {
+    private static final int SEARCH_LIMIT = 20;
+
     /**
      * Main method to run the application.
      */
     public static void main(String[] args) {
         try (Scanner scanner = new Scanner(System.in)) {
             Properties config = loadConfig();
-            String dbUrl = config.getProperty("db.url");
-            String dbUsername = config.getProperty("db.username");
-            String dbPassword = config.getProperty("db.password");
-
-            BookDatabaseManager dbManager = new BookDatabaseManager(dbUrl, dbUsername, dbPassword);
+            BookDatabaseManager dbManager = BookDatabaseManager.fromConfig(config);
             Library library = new Library(dbManager);
 
             boolean running = true;
@@ -34,7 +33,8 @@ public class BookApplication {
                 System.out.println("2. Print all authors");
                 System.out.println("3. Print all books by an author");
                 System.out.println("4. Print all authors of a book");
-                System.out.println("5. Quit");
+                System.out.println("5. Search books and authors");
+                System.out.println("6. Quit");
 
                 int choice = scanner.nextInt();
                 scanner.nextLine();
@@ -48,6 +48,8 @@ public class BookApplication {
                 } else if (choice == 4) {
                     printAuthorsForBook(scanner, library, dbManager);
                 } else if (choice == 5) {
+                    search(scanner, library);
+                } else if (choice == 6) {
                     running = false;
                 } else {
                     System.out.println("Invalid choice. Please try again.");
@@ -69,6 +71,31 @@ public class BookApplication {
         return props;
     }
 
+    /**
+     * Searches titles and author names. Words may be partial, and close misspellings are also matched.
+     * @param scanner The scanner for user input.
+     * @param library The library instance.
+     */
+    private static void search(Scanner scanner, Library library) {
+        System.out.println("Enter the words to search for:");
+        String query = scanner.nextLine();
+
+        long start = System.nanoTime();
+        List<Book> books = library.searchBooks(query, SEARCH_LIMIT);
+        List<Author> authors = library.searchAuthors(query, SEARCH_LIMIT);
+        long micros = (System.nanoTime() - start) / 1000;
+
+        System.out.println("Books:");
+        for (Book book : books) {
+            System.out.println(" - " + book.getTitle() + " (ISBN: " + book.getIsbn() + ")");
+        }
+        System.out.println("Authors:");
+        for (Author author : authors) {
+            System.out.println(" - " + author.getFirstName() + " " + author.getLastName());
+        }
+        System.out.println((books.size() + authors.size()) + " results in " + micros + " microseconds");
+    }
+
     /**
      * Prints a list of all books in the library along with their authors.
      * @param library The library instance.
@@ -1,20 +1,54 @@
 package org.example.assignment2;
 
+import org.mariadb.jdbc.MariaDbPoolDataSource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Manages database operations for books and authors in the library system.
  * Provides methods for retrieving, adding, updating, and deleting books and authors from a SQL database.
  * Handles relationships between books and authors.
+ * Every change is also recorded in the catalogChanges table, in the same transaction as the change,
+ * so the console library can apply just the changed books and authors instead of reloading the catalog.
  * @author john-michael woodrow
  */
 public class BookDatabaseManager {
-    private final Connection connection;
+    private static final int DEFAULT_MAX_POOL_SIZE = 10;
+    private static final int DEFAULT_CONNECT_TIMEOUT_MS = 5000;
+    private static final int DEFAULT_SOCKET_TIMEOUT_MS = 30000;
+    private static final int DEFAULT_MAX_IDLE_TIME_SEC = 600;
+    // Enough for every fixed statement in this class, so only an unusual mix of statements causes evictions.
+    private static final int MAX_STATEMENTS_PER_CONNECTION = 64;
+    private static final int STREAM_FETCH_SIZE = 500;
+    private static final int MAX_ROWS_PER_INSERT = 1000;
+    // Identifies the changes made by this process in the catalogChanges table.
+    static final String ORIGIN = UUID.randomUUID().toString();
+    // Change records are kept for a day, the same as the console library keeps them.
+    private static final int CHANGE_RETENTION_HOURS = 24;
+    private static final long PRUNE_INTERVAL_MILLIS = 60 * 60 * 1000L;
+    // When this process last pruned the change log, shared by all of its managers.
+    private static final AtomicLong lastPrune = new AtomicLong();
+
+    private final DataSource dataSource;
+    private final PreparedStatementCache statementCache = new PreparedStatementCache(MAX_STATEMENTS_PER_CONNECTION);
 
     /**
-     * Establishes a connection to the database using the provided credentials.
+     * Creates a connection pool for the database using the provided credentials and default pool settings.
      *
      * @param dbUrl    The database URL.
      * @param username The database username.
@@ -22,31 +56,286 @@ public class BookDatabaseManager {
      * @throws SQLException if a database connection error occurs.
      */
     public BookDatabaseManager(String dbUrl, String username, String password) throws SQLException {
+        this(createPool(dbUrl, username, password, DEFAULT_MAX_POOL_SIZE, DEFAULT_CONNECT_TIMEOUT_MS,
+                DEFAULT_SOCKET_TIMEOUT_MS, DEFAULT_MAX_IDLE_TIME_SEC));
+        createChangeLog();
+        pruneChangesIfDue();
+    }
+
+    /**
+     * Uses an existing data source. Every operation borrows a connection from it and returns it when done,
+     * so one manager can be shared safely between request threads.
+     * The catalogChanges table must exist before anything is changed; call createChangeLog if it may not.
+     *
+     * @param dataSource The data source to borrow connections from.
+     */
+    public BookDatabaseManager(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Creates a manager backed by a connection pool configured from properties.
+     * Reads db.url, db.username and db.password, plus the optional pool settings
+     * db.pool.maxSize, db.pool.connectTimeoutMs, db.pool.socketTimeoutMs and db.pool.maxIdleTimeSec.
+     *
+     * @param config The configuration properties.
+     * @return A manager using the configured pool.
+     * @throws SQLException if the pool cannot be created.
+     */
+    public static BookDatabaseManager fromConfig(Properties config) throws SQLException {
+        BookDatabaseManager manager = new BookDatabaseManager(createPool(
+                config.getProperty("db.url"),
+                config.getProperty("db.username"),
+                config.getProperty("db.password"),
+                Integer.parseInt(config.getProperty("db.pool.maxSize", String.valueOf(DEFAULT_MAX_POOL_SIZE))),
+                Integer.parseInt(config.getProperty("db.pool.connectTimeoutMs", String.valueOf(DEFAULT_CONNECT_TIMEOUT_MS))),
+                Integer.parseInt(config.getProperty("db.pool.socketTimeoutMs", String.valueOf(DEFAULT_SOCKET_TIMEOUT_MS))),
+                Integer.parseInt(config.getProperty("db.pool.maxIdleTimeSec", String.valueOf(DEFAULT_MAX_IDLE_TIME_SEC)))));
+        manager.createChangeLog();
+        manager.pruneChangesIfDue();
+        return manager;
+    }
+
+    /**
+     * Creates the catalogChanges table if it does not exist yet. It has the same layout as the one the console library creates.
+     * @throws SQLException if the table cannot be created.
+     */
+    public void createChangeLog() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS catalogChanges ("
+                    + "changeID BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "entity VARCHAR(6) NOT NULL, "
+                    + "entityKey VARCHAR(20) NOT NULL, "
+                    + "origin CHAR(36) NOT NULL, "
+                    + "changedAt TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+        }
+    }
+
+    /**
+     * Records that a book or author was changed, on the connection the change was made on.
+     * @param entity CatalogChange.BOOK or CatalogChange.AUTHOR.
+     * @param key The ISBN of the book or the ID of the author.
+     */
+    private void logChange(Connection connection, String entity, String key) throws SQLException {
+        String query = "INSERT INTO catalogChanges (entity, entityKey, origin) VALUES (?, ?, ?)";
+        PreparedStatement stmt = statementCache.prepare(connection, query);
+        stmt.setString(1, entity);
+        stmt.setString(2, key);
+        stmt.setString(3, ORIGIN);
+        stmt.executeUpdate();
+    }
+
+    /**
+     * Work done on one connection inside a transaction.
+     */
+    private interface TransactionWork {
+        /**
+         * Runs the statements of the transaction.
+         * @param connection The connection, with auto-commit off.
+         * @throws SQLException if a statement fails. The transaction is rolled back in that case.
+         */
+        void run(Connection connection) throws SQLException;
+    }
+
+    /**
+     * Runs a change and its change record in one transaction, so either both are committed or neither is.
+     * @param work The statements to run.
+     * @throws SQLException if a statement fails. Nothing is written in that case.
+     */
+    private void inTransaction(TransactionWork work) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                work.run(connection);
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Deletes the change records older than a number of hours. The age is worked out with the database's clock,
+     * the same clock that stamped the records.
+     * @param retentionHours How many hours of records to keep.
+     * @return The number of records deleted.
+     * @throws SQLException if a database access error occurs.
+     */
+    public int pruneChanges(int retentionHours) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            PreparedStatement stmt = statementCache.prepare(connection,
+                    "DELETE FROM catalogChanges WHERE changedAt < TIMESTAMPADD(HOUR, -?, CURRENT_TIMESTAMP)");
+            stmt.setInt(1, retentionHours);
+            return stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Deletes the change records older than CHANGE_RETENTION_HOURS, at most once every PRUNE_INTERVAL_MILLIS per process.
+     * Managers created from config prune when they start, and the servlet calls this after each change,
+     * so the table does not grow without bound. A failed prune is reported and tried again later.
+     */
+    public void pruneChangesIfDue() {
+        long now = System.currentTimeMillis();
+        long last = lastPrune.get();
+        if (now - last < PRUNE_INTERVAL_MILLIS || !lastPrune.compareAndSet(last, now)) {
+            return;
+        }
+        try {
+            pruneChanges(CHANGE_RETENTION_HOURS);
+        } catch (SQLException e) {
+            lastPrune.set(last);
+            System.err.println("Error pruning catalog changes: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves the ID of the most recent change to the catalog, made by any process.
+     * @return The latest change ID, or 0 if no change has been recorded.
+     * @throws SQLException if a database access error occurs.
+     */
+    public long getLatestChangeId() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            PreparedStatement stmt = statementCache.prepare(connection, "SELECT COALESCE(MAX(changeID), 0) FROM catalogChanges");
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the change records after a change ID, oldest first, made by any process.
+     * @param afterId The change ID to read after.
+     * @param limit The maximum number of records to return.
+     * @return The change records.
+     * @throws SQLException if a database access error occurs.
+     */
+    public List<CatalogChange> getChangesAfter(long afterId, int limit) throws SQLException {
+        String query = "SELECT changeID, entity, entityKey, origin FROM catalogChanges WHERE changeID > ? ORDER BY changeID LIMIT ?";
+        try (Connection connection = dataSource.getConnection()) {
+            PreparedStatement stmt = statementCache.prepare(connection, query);
+            stmt.setLong(1, afterId);
+            stmt.setInt(2, limit);
+            List<CatalogChange> changes = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    changes.add(new CatalogChange(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4)));
+                }
+            }
+            return changes;
+        }
+    }
+
+    /**
+     * Builds a bounded MariaDB connection pool.
+     * connectTimeout also limits how long a caller waits for a free connection when the pool is exhausted.
+     * Server-side prepared statements are enabled so that cached statements keep their server handle.
+     */
+    private static DataSource createPool(String dbUrl, String username, String password, int maxPoolSize,
+                                         int connectTimeoutMs, int socketTimeoutMs, int maxIdleTimeSec) throws SQLException {
         try {
             Class.forName("org.mariadb.jdbc.Driver");
-            connection = DriverManager.getConnection(dbUrl, username, password);
         } catch (ClassNotFoundException e) {
             throw new SQLException("MariaDB JDBC Driver not found", e);
         }
+        String separator = dbUrl.contains("?") ? "&" : "?";
+        MariaDbPoolDataSource pool = new MariaDbPoolDataSource();
+        pool.setUrl(dbUrl + separator + "maxPoolSize=" + maxPoolSize
+                + "&connectTimeout=" + connectTimeoutMs
+                + "&socketTimeout=" + socketTimeoutMs
+                + "&maxIdleTime=" + maxIdleTimeSec
+                + "&useServerPrepStmts=true");
+        pool.setUser(username);
+        pool.setPassword(password);
+        return pool;
+    }
+
+    /**
+     * Retrieves how many times a cached prepared statement was reused instead of being prepared again.
+     * @return The number of statement cache hits.
+     */
+    public long getStatementCacheHits() {
+        return statementCache.getHits();
     }
 
     /**
-     * Retrieves all books from the database.
+     * Retrieves how many statements had to be prepared because they were not cached for the connection yet.
+     * @return The number of statement cache misses.
+     */
+    public long getStatementCacheMisses() {
+        return statementCache.getMisses();
+    }
+
+    /**
+     * Retrieves how many cached statements were closed to keep a connection within MAX_STATEMENTS_PER_CONNECTION.
+     * @return The number of statement cache evictions.
+     */
+    public long getStatementCacheEvictions() {
+        return statementCache.getEvictions();
+    }
+
+    /**
+     * Closes the cached statements, and the connection pool if this manager owns one.
+     */
+    public void close() {
+        statementCache.clear();
+        if (dataSource instanceof MariaDbPoolDataSource) {
+            ((MariaDbPoolDataSource) dataSource).close();
+        }
+    }
+
+    /**
+     * Retrieves all books from the database with their authors attached.
+     * The whole catalog is read in three flat scans, so the number of queries does not grow with the number of books.
      *
      * @return A list of all books.
      * @throws SQLException if a database access error occurs.
      */
     public List<Book> getAllBooks() throws SQLException {
-        String query = "SELECT * FROM titles";
-        List<Book> books = new ArrayList<>();
-        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(query)) {
-            while (rs.next()) {
-                Book book = new Book(rs.getString("isbn"), rs.getString("title"), rs.getInt("editionNumber"), rs.getString("copyright"));
-                loadAuthorsForBook(book);
-                books.add(book);
+        Map<String, Book> books = new LinkedHashMap<>();
+        Map<Integer, Author> authors = new HashMap<>();
+        loadCatalog(books, authors);
+        return new ArrayList<>(books.values());
+    }
+
+    /**
+     * Loads every title, author and authorISBN row and wires the book-author relationships in memory.
+     * Each book and author is created once, so both sides of the relationship share the same instances.
+     *
+     * @param books   Map to fill with books keyed by ISBN.
+     * @param authors Map to fill with authors keyed by author ID.
+     * @throws SQLException if a database access error occurs.
+     */
+    public void loadCatalog(Map<String, Book> books, Map<Integer, Author> authors) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement stmt = connection.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SELECT isbn, title, editionNumber, copyright FROM titles")) {
+                while (rs.next()) {
+                    Book book = new Book(rs.getString("isbn"), rs.getString("title"), rs.getInt("editionNumber"), rs.getString("copyright"));
+                    books.put(book.getIsbn(), book);
+                }
+            }
+
+            try (ResultSet rs = stmt.executeQuery("SELECT authorID, firstName, lastName FROM authors")) {
+                while (rs.next()) {
+                    Author author = new Author(rs.getInt("authorID"), rs.getString("firstName"), rs.getString("lastName"));
+                    authors.put(author.getAuthorId(), author);
+                }
+            }
+
+            try (ResultSet rs = stmt.executeQuery("SELECT authorID, isbn FROM authorISBN")) {
+                while (rs.next()) {
+                    Book book = books.get(rs.getString("isbn"));
+                    Author author = authors.get(rs.getInt("authorID"));
+                    if (book != null && author != null) {
+                        book.addAuthor(author);
+                    }
+                }
             }
         }
-        return books;
     }
 
     /**
@@ -54,17 +343,21 @@ public class BookDatabaseManager {
      */
     public Book getBookByIsbn(String isbn) throws SQLException {
         String query = "SELECT * FROM titles WHERE isbn = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        Book book = null;
+        try (Connection connection = dataSource.getConnection()) {
+            PreparedStatement stmt = statementCache.prepare(connection, query);
             stmt.setString(1, isbn);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                Book book = new Book(rs.getString("isbn"), rs.getString("title"),
-                        rs.getInt("editionNumber"), rs.getString("copyright"));
-                loadAuthorsForBook(book);
-                return book;
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    book = new Book(rs.getString("isbn"), rs.getString("title"),
+                            rs.getInt("editionNumber"), rs.getString("copyright"));
+                }
             }
         }
-        return null;
+        if (book != null) {
+            loadAuthorsForBook(book);
+        }
+        return book;
     }
 
     /**
@@ -75,14 +368,96 @@ public class BookDatabaseManager {
      */
     public void addBook(Book book) throws SQLException {
         String query = "INSERT INTO titles (isbn, title, editionNumber, copyright) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        inTransaction(connection -> {
+            PreparedStatement stmt = statementCache.prepare(connection, query);
             stmt.setString(1, book.getIsbn());
             stmt.setString(2, book.getTitle());
             stmt.setInt(3, book.getEditionNumber());
             stmt.setString(4, book.getCopyright());
             stmt.executeUpdate();
+            addBookAuthors(connection, book);
+            logChange(connection, CatalogChange.BOOK, book.getIsbn());
+        });
+    }
+
+    /**
+     * Adds a book written by one author in a single transaction.
+     * When the author has no ID yet it is inserted only if no author with the same name exists,
+     * and its ID is set on the object. If any step fails, nothing is written.
+     * @param book The book to add. Its author list is not used.
+     * @param author The author of the book.
+     * @throws SQLException if a database access error occurs.
+     */
+    public void addBookWithAuthor(Book book, Author author) throws SQLException {
+        boolean newAuthor = author.getAuthorId() == 0;
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                if (newAuthor) {
+                    author.setAuthorId(upsertAuthor(connection, author));
+                }
+
+                String titleQuery = "INSERT INTO titles (isbn, title, editionNumber, copyright) VALUES (?, ?, ?, ?)";
+                PreparedStatement titleStmt = statementCache.prepare(connection, titleQuery);
+                titleStmt.setString(1, book.getIsbn());
+                titleStmt.setString(2, book.getTitle());
+                titleStmt.setInt(3, book.getEditionNumber());
+                titleStmt.setString(4, book.getCopyright());
+                titleStmt.executeUpdate();
+
+                String linkQuery = "INSERT INTO authorISBN (authorID, isbn) VALUES (?, ?)";
+                PreparedStatement linkStmt = statementCache.prepare(connection, linkQuery);
+                linkStmt.setInt(1, author.getAuthorId());
+                linkStmt.setString(2, book.getIsbn());
+                linkStmt.executeUpdate();
+
+                if (newAuthor) {
+                    logChange(connection, CatalogChange.AUTHOR, String.valueOf(author.getAuthorId()));
+                }
+                logChange(connection, CatalogChange.BOOK, book.getIsbn());
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                if (newAuthor) {
+                    author.setAuthorId(0);
+                }
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
         }
-        addBookAuthors(book);
+    }
+
+    /**
+     * Inserts an author unless one with the same name already exists.
+     * @return The ID of the inserted or existing author.
+     */
+    private int upsertAuthor(Connection connection, Author author) throws SQLException {
+        String insertQuery = "INSERT INTO authors (firstName, lastName) SELECT ?, ? FROM DUAL " +
+                "WHERE NOT EXISTS (SELECT 1 FROM authors WHERE firstName = ? AND lastName = ?)";
+        PreparedStatement insertStmt = statementCache.prepare(connection, insertQuery, Statement.RETURN_GENERATED_KEYS);
+        insertStmt.setString(1, author.getFirstName());
+        insertStmt.setString(2, author.getLastName());
+        insertStmt.setString(3, author.getFirstName());
+        insertStmt.setString(4, author.getLastName());
+        if (insertStmt.executeUpdate() == 1) {
+            try (ResultSet keys = insertStmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    return keys.getInt(1);
+                }
+            }
+        }
+
+        String selectQuery = "SELECT authorID FROM authors WHERE firstName = ? AND lastName = ? ORDER BY authorID LIMIT 1";
+        PreparedStatement selectStmt = statementCache.prepare(connection, selectQuery);
+        selectStmt.setString(1, author.getFirstName());
+        selectStmt.setString(2, author.getLastName());
+        try (ResultSet rs = selectStmt.executeQuery()) {
+            if (rs.next()) {
+                return rs.getInt("authorID");
+            }
+        }
+        throw new SQLException("Author could not be inserted or found: " + author.getFirstName() + " " + author.getLastName());
     }
 
     /**
@@ -92,35 +467,150 @@ public class BookDatabaseManager {
      */
     public void updateBook(Book book) throws SQLException {
         String query = "UPDATE titles SET title = ?, editionNumber = ?, copyright = ? WHERE isbn = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        inTransaction(connection -> {
+            PreparedStatement stmt = statementCache.prepare(connection, query);
             stmt.setString(1, book.getTitle());
             stmt.setInt(2, book.getEditionNumber());
             stmt.setString(3, book.getCopyright());
             stmt.setString(4, book.getIsbn());
             stmt.executeUpdate();
-        }
+            logChange(connection, CatalogChange.BOOK, book.getIsbn());
+        });
     }
 
     /**
      * Deletes a book from the database.
-     * Also removes any author-book associations.
+     * Also removes any author-book associations, in the same transaction.
      * @param book The book to delete.
      * @throws SQLException if a database access error occurs.
      */
     public void deleteBook(Book book) throws SQLException {
         System.out.println("Deleting book from database: " + book.getIsbn());
         String deleteAuthorLinkQuery = "DELETE FROM authorISBN WHERE isbn = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(deleteAuthorLinkQuery)) {
-            stmt.setString(1, book.getIsbn());
-            int affectedRows = stmt.executeUpdate();
+        String deleteBookQuery = "DELETE FROM titles WHERE isbn = ?";
+        inTransaction(connection -> {
+            PreparedStatement deleteLinks = statementCache.prepare(connection, deleteAuthorLinkQuery);
+            deleteLinks.setString(1, book.getIsbn());
+            int affectedRows = deleteLinks.executeUpdate();
             System.out.println("Deleted " + affectedRows + " authorISBN records.");
-        }
 
-        String deleteBookQuery = "DELETE FROM titles WHERE isbn = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(deleteBookQuery)) {
-            stmt.setString(1, book.getIsbn());
-            int affectedRows = stmt.executeUpdate();
+            PreparedStatement deleteTitle = statementCache.prepare(connection, deleteBookQuery);
+            deleteTitle.setString(1, book.getIsbn());
+            affectedRows = deleteTitle.executeUpdate();
             System.out.println("Deleted " + affectedRows + " book records.");
+            logChange(connection, CatalogChange.BOOK, book.getIsbn());
+        });
+    }
+
+    /**
+     * Retrieves the page of books that follows an ISBN, in ISBN order.
+     * Uses the primary key index, so the cost of a page does not depend on how far into the catalog it is.
+     * @param afterIsbn The last ISBN of the previous page, or null for the first page.
+     * @param limit The maximum number of books to return.
+     * @return The books of the page with their authors attached.
+     * @throws SQLException if a database access error occurs.
+     */
+    public List<Book> getBooksAfter(String afterIsbn, int limit) throws SQLException {
+        String query = "SELECT isbn, title, editionNumber, copyright FROM titles WHERE isbn > ? ORDER BY isbn LIMIT ?";
+        return getBooksPage(query, afterIsbn == null ? "" : afterIsbn, limit, false);
+    }
+
+    /**
+     * Retrieves the page of books that precedes an ISBN, in ISBN order.
+     * @param beforeIsbn The first ISBN of the following page.
+     * @param limit The maximum number of books to return.
+     * @return The books of the page with their authors attached.
+     * @throws SQLException if a database access error occurs.
+     */
+    public List<Book> getBooksBefore(String beforeIsbn, int limit) throws SQLException {
+        String query = "SELECT isbn, title, editionNumber, copyright FROM titles WHERE isbn < ? ORDER BY isbn DESC LIMIT ?";
+        return getBooksPage(query, beforeIsbn, limit, true);
+    }
+
+    /**
+     * Runs a keyset query for a page of books and attaches the authors of that page with one range query.
+     */
+    private List<Book> getBooksPage(String query, String isbn, int limit, boolean descending) throws SQLException {
+        Map<String, Book> books = new LinkedHashMap<>();
+        try (Connection connection = dataSource.getConnection()) {
+            PreparedStatement stmt = statementCache.prepare(connection, query);
+            stmt.setString(1, isbn);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Book book = new Book(rs.getString("isbn"), rs.getString("title"), rs.getInt("editionNumber"), rs.getString("copyright"));
+                    books.put(book.getIsbn(), book);
+                }
+            }
+
+            List<Book> page = new ArrayList<>(books.values());
+            if (descending) {
+                Collections.reverse(page);
+            }
+            if (page.isEmpty()) {
+                return page;
+            }
+
+            String authorQuery = "SELECT ai.isbn, a.authorID, a.firstName, a.lastName FROM authorISBN ai " +
+                    "JOIN authors a ON a.authorID = ai.authorID " +
+                    "WHERE ai.isbn BETWEEN ? AND ?";
+            PreparedStatement authorStmt = statementCache.prepare(connection, authorQuery);
+            authorStmt.setString(1, page.get(0).getIsbn());
+            authorStmt.setString(2, page.get(page.size() - 1).getIsbn());
+            Map<Integer, Author> authors = new HashMap<>();
+            try (ResultSet rs = authorStmt.executeQuery()) {
+                while (rs.next()) {
+                    Book book = books.get(rs.getString("isbn"));
+                    if (book != null) {
+                        int authorId = rs.getInt("authorID");
+                        Author author = authors.get(authorId);
+                        if (author == null) {
+                            author = new Author(authorId, rs.getString("firstName"), rs.getString("lastName"));
+                            authors.put(authorId, author);
+                        }
+                        book.addAuthor(author);
+                    }
+                }
+            }
+            return page;
+        }
+    }
+
+    /**
+     * Streams every book with its authors to a handler, in ISBN order.
+     * Rows are read from a forward-only result set in batches of the fetch size,
+     * so only the current book is held in memory no matter how large the catalog is.
+     * @param handler Receives each book as soon as all of its rows have been read.
+     * @throws SQLException if a database access error occurs.
+     * @throws IOException if the handler fails to write a book.
+     */
+    public void streamBooks(BookHandler handler) throws SQLException, IOException {
+        String query = "SELECT t.isbn, t.title, t.editionNumber, t.copyright, a.authorID, a.firstName, a.lastName FROM titles t " +
+                "LEFT JOIN authorISBN ai ON ai.isbn = t.isbn " +
+                "LEFT JOIN authors a ON a.authorID = ai.authorID " +
+                "ORDER BY t.isbn";
+        try (Connection connection = dataSource.getConnection();
+             Statement stmt = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery(query)) {
+                Book current = null;
+                while (rs.next()) {
+                    String isbn = rs.getString("isbn");
+                    if (current == null || !current.getIsbn().equals(isbn)) {
+                        if (current != null) {
+                            handler.handle(current);
+                        }
+                        current = new Book(isbn, rs.getString("title"), rs.getInt("editionNumber"), rs.getString("copyright"));
+                    }
+                    int authorId = rs.getInt("authorID");
+                    if (!rs.wasNull()) {
+                        current.addAuthor(new Author(authorId, rs.getString("firstName"), rs.getString("lastName")));
+                    }
+                }
+                if (current != null) {
+                    handler.handle(current);
+                }
+            }
         }
     }
 
@@ -131,32 +621,103 @@ public class BookDatabaseManager {
         String query = "SELECT a.authorID, a.firstName, a.lastName FROM authors a " +
                 "JOIN authorISBN ai ON a.authorID = ai.authorID " +
                 "WHERE ai.isbn = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = dataSource.getConnection()) {
+            PreparedStatement stmt = statementCache.prepare(connection, query);
             stmt.setString(1, book.getIsbn());
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                Author author = new Author(rs.getInt("authorID"), rs.getString("firstName"), rs.getString("lastName"));
-                book.addAuthor(author);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Author author = new Author(rs.getInt("authorID"), rs.getString("firstName"), rs.getString("lastName"));
+                    book.addAuthor(author);
+                }
             }
         }
     }
 
     /**
-     * Retrieves all authors from the database.
+     * Retrieves all authors from the database with their books attached.
+     * Uses the same three-scan catalog load as {@link #getAllBooks()}.
      * @return A list of all authors.
      * @throws SQLException if a database access error occurs.
      */
     public List<Author> getAllAuthors() throws SQLException {
-        String query = "SELECT * FROM authors";
-        List<Author> authors = new ArrayList<>();
-        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(query)) {
-            while (rs.next()) {
-                Author author = new Author(rs.getInt("authorID"), rs.getString("firstName"), rs.getString("lastName"));
-                loadBooksForAuthor(author);
-                authors.add(author);
+        Map<String, Book> books = new HashMap<>();
+        Map<Integer, Author> authors = new LinkedHashMap<>();
+        loadCatalog(books, authors);
+        return new ArrayList<>(authors.values());
+    }
+
+    /**
+     * Retrieves the page of authors that follows an author ID, in ID order.
+     * Uses the primary key index, so the cost of a page does not depend on how far into the catalog it is.
+     * @param afterAuthorId The last author ID of the previous page, or 0 for the first page.
+     * @param limit The maximum number of authors to return.
+     * @return The authors of the page with their books attached.
+     * @throws SQLException if a database access error occurs.
+     */
+    public List<Author> getAuthorsAfter(int afterAuthorId, int limit) throws SQLException {
+        String query = "SELECT authorID, firstName, lastName FROM authors WHERE authorID > ? ORDER BY authorID LIMIT ?";
+        return getAuthorsPage(query, afterAuthorId, limit, false);
+    }
+
+    /**
+     * Retrieves the page of authors that precedes an author ID, in ID order.
+     * @param beforeAuthorId The first author ID of the following page.
+     * @param limit The maximum number of authors to return.
+     * @return The authors of the page with their books attached.
+     * @throws SQLException if a database access error occurs.
+     */
+    public List<Author> getAuthorsBefore(int beforeAuthorId, int limit) throws SQLException {
+        String query = "SELECT authorID, firstName, lastName FROM authors WHERE authorID < ? ORDER BY authorID DESC LIMIT ?";
+        return getAuthorsPage(query, beforeAuthorId, limit, true);
+    }
+
+    /**
+     * Runs a keyset query for a page of authors and attaches the books of that page with one range query.
+     */
+    private List<Author> getAuthorsPage(String query, int authorId, int limit, boolean descending) throws SQLException {
+        Map<Integer, Author> authors = new LinkedHashMap<>();
+        try (Connection connection = dataSource.getConnection()) {
+            PreparedStatement stmt = statementCache.prepare(connection, query);
+            stmt.setInt(1, authorId);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Author author = new Author(rs.getInt("authorID"), rs.getString("firstName"), rs.getString("lastName"));
+                    authors.put(author.getAuthorId(), author);
+                }
+            }
+
+            List<Author> page = new ArrayList<>(authors.values());
+            if (descending) {
+                Collections.reverse(page);
+            }
+            if (page.isEmpty()) {
+                return page;
             }
+
+            String bookQuery = "SELECT ai.authorID, t.isbn, t.title, t.editionNumber, t.copyright FROM authorISBN ai " +
+                    "JOIN titles t ON t.isbn = ai.isbn " +
+                    "WHERE ai.authorID BETWEEN ? AND ?";
+            PreparedStatement bookStmt = statementCache.prepare(connection, bookQuery);
+            bookStmt.setInt(1, page.get(0).getAuthorId());
+            bookStmt.setInt(2, page.get(page.size() - 1).getAuthorId());
+            Map<String, Book> books = new HashMap<>();
+            try (ResultSet rs = bookStmt.executeQuery()) {
+                while (rs.next()) {
+                    Author author = authors.get(rs.getInt("authorID"));
+                    if (author != null) {
+                        String isbn = rs.getString("isbn");
+                        Book book = books.get(isbn);
+                        if (book == null) {
+                            book = new Book(isbn, rs.getString("title"), rs.getInt("editionNumber"), rs.getString("copyright"));
+                            books.put(isbn, book);
+                        }
+                        author.addBook(book);
+                    }
+                }
+            }
+            return page;
         }
-        return authors;
     }
 
     /**
@@ -164,11 +725,13 @@ public class BookDatabaseManager {
      */
     public Author getAuthorById(int authorId) throws SQLException {
         String query = "SELECT * FROM authors WHERE authorID = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = dataSource.getConnection()) {
+            PreparedStatement stmt = statementCache.prepare(connection, query);
             stmt.setInt(1, authorId);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return new Author(rs.getInt("authorID"), rs.getString("firstName"), rs.getString("lastName"));
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new Author(rs.getInt("authorID"), rs.getString("firstName"), rs.getString("lastName"));
+                }
             }
         }
         return null;
@@ -179,12 +742,14 @@ public class BookDatabaseManager {
      */
     public Author getAuthorByName(String firstName, String lastName) throws SQLException {
         String query = "SELECT * FROM authors WHERE firstName = ? AND lastName = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = dataSource.getConnection()) {
+            PreparedStatement stmt = statementCache.prepare(connection, query);
             stmt.setString(1, firstName);
             stmt.setString(2, lastName);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return new Author(rs.getInt("authorID"), rs.getString("firstName"), rs.getString("lastName"));
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new Author(rs.getInt("authorID"), rs.getString("firstName"), rs.getString("lastName"));
+                }
             }
         }
         return null;
@@ -197,14 +762,22 @@ public class BookDatabaseManager {
      */
     public void addAuthor(Author author) throws SQLException {
         String query = "INSERT INTO authors (firstName, lastName) VALUES (?, ?)";
-        try (PreparedStatement stmt = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
-            stmt.setString(1, author.getFirstName());
-            stmt.setString(2, author.getLastName());
-            stmt.executeUpdate();
-            ResultSet keys = stmt.getGeneratedKeys();
-            if (keys.next()) {
-                author.setAuthorId(keys.getInt(1));
-            }
+        try {
+            inTransaction(connection -> {
+                PreparedStatement stmt = statementCache.prepare(connection, query, Statement.RETURN_GENERATED_KEYS);
+                stmt.setString(1, author.getFirstName());
+                stmt.setString(2, author.getLastName());
+                stmt.executeUpdate();
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        author.setAuthorId(keys.getInt(1));
+                    }
+                }
+                logChange(connection, CatalogChange.AUTHOR, String.valueOf(author.getAuthorId()));
+            });
+        } catch (SQLException e) {
+            author.setAuthorId(0);
+            throw e;
         }
     }
 
@@ -215,12 +788,14 @@ public class BookDatabaseManager {
      */
     public void updateAuthor(Author author) throws SQLException {
         String query = "UPDATE authors SET firstName = ?, lastName = ? WHERE authorID = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        inTransaction(connection -> {
+            PreparedStatement stmt = statementCache.prepare(connection, query);
             stmt.setString(1, author.getFirstName());
             stmt.setString(2, author.getLastName());
             stmt.setInt(3, author.getAuthorId());
             stmt.executeUpdate();
-        }
+            logChange(connection, CatalogChange.AUTHOR, String.valueOf(author.getAuthorId()));
+        });
     }
 
     /**
@@ -230,10 +805,12 @@ public class BookDatabaseManager {
      */
     public void deleteAuthor(Author author) throws SQLException {
         String query = "DELETE FROM authors WHERE authorID = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        inTransaction(connection -> {
+            PreparedStatement stmt = statementCache.prepare(connection, query);
             stmt.setInt(1, author.getAuthorId());
             stmt.executeUpdate();
-        }
+            logChange(connection, CatalogChange.AUTHOR, String.valueOf(author.getAuthorId()));
+        });
     }
 
     /**
@@ -243,31 +820,256 @@ public class BookDatabaseManager {
         String query = "SELECT t.isbn, t.title, t.editionNumber, t.copyright FROM titles t " +
                 "JOIN authorISBN ai ON t.isbn = ai.isbn " +
                 "WHERE ai.authorID = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = dataSource.getConnection()) {
+            PreparedStatement stmt = statementCache.prepare(connection, query);
             stmt.setInt(1, author.getAuthorId());
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                Book book = new Book(rs.getString("isbn"), rs.getString("title"), rs.getInt("editionNumber"), rs.getString("copyright"));
-                author.addBook(book);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Book book = new Book(rs.getString("isbn"), rs.getString("title"), rs.getInt("editionNumber"), rs.getString("copyright"));
+                    author.addBook(book);
+                }
             }
         }
     }
 
     /**
-     * Associates a book with its authors in the database.
-     * @param book The book to associate with authors.
+     * Retrieves every author without loading their books.
+     * @return A list of all authors.
      * @throws SQLException if a database access error occurs.
      */
-    private void addBookAuthors(Book book) throws SQLException {
-        String query = "INSERT INTO authorISBN (authorID, isbn) VALUES (?, ?)";
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
-            for (Author author : book.getAuthors()) {
-                stmt.setInt(1, author.getAuthorId());
-                stmt.setString(2, book.getIsbn());
+    public List<Author> listAuthors() throws SQLException {
+        List<Author> authors = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection(); Statement stmt = connection.createStatement()) {
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery("SELECT authorID, firstName, lastName FROM authors")) {
+                while (rs.next()) {
+                    authors.add(new Author(rs.getInt("authorID"), rs.getString("firstName"), rs.getString("lastName")));
+                }
+            }
+        }
+        return authors;
+    }
+
+    /**
+     * Binds the parameters of one row of a multi-row insert.
+     */
+    private interface RowBinder {
+        /**
+         * Binds a row.
+         * @param stmt The statement to bind.
+         * @param firstParameter The index of the row's first parameter.
+         * @param row The index of the row.
+         * @throws SQLException if a parameter cannot be set.
+         */
+        void bind(PreparedStatement stmt, int firstParameter, int row) throws SQLException;
+    }
+
+    /**
+     * Writes a chunk of an import in one transaction.
+     * New authors are inserted first in one batch so they receive their IDs, then the titles and the author links
+     * are written with multi-row inserts. A book whose ISBN is already in the database with the same details is
+     * left as it is, so a chunk that was committed before a failure can safely be imported again. A book whose ISBN
+     * is already taken by different details, in the database or earlier in the chunk, is not written and is returned.
+     * @param newAuthors Authors that are not in the database yet. Their IDs are set once inserted.
+     * @param books The books of the chunk, with their authors attached.
+     * @return The books that were not written because their ISBN belongs to a different book.
+     * @throws SQLException if a database access error occurs. Nothing of the chunk is written in that case.
+     */
+    public List<Book> importChunk(List<Author> newAuthors, List<Book> books) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                if (!newAuthors.isEmpty()) {
+                    // One batch for all new authors; the driver sends it without waiting for each insert.
+                    String authorQuery = "INSERT INTO authors (firstName, lastName) VALUES (?, ?)";
+                    PreparedStatement authorStmt = statementCache.prepare(connection, authorQuery, Statement.RETURN_GENERATED_KEYS);
+                    for (Author author : newAuthors) {
+                        authorStmt.setString(1, author.getFirstName());
+                        authorStmt.setString(2, author.getLastName());
+                        authorStmt.addBatch();
+                    }
+                    authorStmt.executeBatch();
+                    int assigned = 0;
+                    try (ResultSet keys = authorStmt.getGeneratedKeys()) {
+                        while (assigned < newAuthors.size() && keys.next()) {
+                            newAuthors.get(assigned++).setAuthorId(keys.getInt(1));
+                        }
+                    }
+                    if (assigned != newAuthors.size()) {
+                        throw new SQLException("Expected " + newAuthors.size() + " author IDs but the database returned " + assigned);
+                    }
+                }
+
+                Map<String, Book> existing = getExistingTitles(connection, books);
+                Map<String, Book> newTitles = new LinkedHashMap<>();
+                List<Book> accepted = new ArrayList<>();
+                List<Book> conflicts = new ArrayList<>();
+                for (Book book : books) {
+                    Book known = existing.get(book.getIsbn());
+                    if (known == null) {
+                        known = newTitles.putIfAbsent(book.getIsbn(), book);
+                    }
+                    if (known == null || sameDetails(known, book)) {
+                        accepted.add(book);
+                    } else {
+                        conflicts.add(book);
+                    }
+                }
+                List<Book> titleRows = new ArrayList<>(newTitles.values());
+
+                insertRows(connection, "INSERT INTO titles (isbn, title, editionNumber, copyright) VALUES ", "(?, ?, ?, ?)",
+                        titleRows.size(), (stmt, index, row) -> {
+                            Book book = titleRows.get(row);
+                            stmt.setString(index, book.getIsbn());
+                            stmt.setString(index + 1, book.getTitle());
+                            stmt.setInt(index + 2, book.getEditionNumber());
+                            stmt.setString(index + 3, book.getCopyright());
+                        });
+
+                List<Integer> linkAuthorIds = new ArrayList<>();
+                List<String> linkIsbns = new ArrayList<>();
+                Set<String> linked = new HashSet<>();
+                Set<String> changedIsbns = new LinkedHashSet<>();
+                for (Book book : accepted) {
+                    changedIsbns.add(book.getIsbn());
+                    for (Author author : book.getAuthors()) {
+                        if (linked.add(author.getAuthorId() + "\t" + book.getIsbn())) {
+                            linkAuthorIds.add(author.getAuthorId());
+                            linkIsbns.add(book.getIsbn());
+                        }
+                    }
+                }
+                // Links of books that were already imported are there already.
+                insertRows(connection, "INSERT IGNORE INTO authorISBN (authorID, isbn) VALUES ", "(?, ?)",
+                        linkIsbns.size(), (stmt, index, row) -> {
+                            stmt.setInt(index, linkAuthorIds.get(row));
+                            stmt.setString(index + 1, linkIsbns.get(row));
+                        });
+
+                List<String> changeEntities = new ArrayList<>(newAuthors.size() + changedIsbns.size());
+                List<String> changeKeys = new ArrayList<>(newAuthors.size() + changedIsbns.size());
+                for (Author author : newAuthors) {
+                    changeEntities.add(CatalogChange.AUTHOR);
+                    changeKeys.add(String.valueOf(author.getAuthorId()));
+                }
+                for (String isbn : changedIsbns) {
+                    changeEntities.add(CatalogChange.BOOK);
+                    changeKeys.add(isbn);
+                }
+                insertRows(connection, "INSERT INTO catalogChanges (entity, entityKey, origin) VALUES ", "(?, ?, ?)",
+                        changeKeys.size(), (stmt, index, row) -> {
+                            stmt.setString(index, changeEntities.get(row));
+                            stmt.setString(index + 1, changeKeys.get(row));
+                            stmt.setString(index + 2, ORIGIN);
+                        });
+
+                connection.commit();
+                return conflicts;
+            } catch (SQLException e) {
+                connection.rollback();
+                for (Author author : newAuthors) {
+                    author.setAuthorId(0);
+                }
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Reads the titles of a chunk that are already in the database, MAX_ROWS_PER_INSERT ISBNs per query.
+     * The IN list always has the same length, padded with the last ISBN, so only one statement is ever prepared for it.
+     */
+    private Map<String, Book> getExistingTitles(Connection connection, List<Book> books) throws SQLException {
+        Map<String, Book> existing = new HashMap<>();
+        if (books.isEmpty()) {
+            return existing;
+        }
+        PreparedStatement stmt = statementCache.prepare(connection,
+                repeatItems("SELECT isbn, title, editionNumber, copyright FROM titles WHERE isbn IN (", "?", MAX_ROWS_PER_INSERT) + ")");
+        for (int start = 0; start < books.size(); start += MAX_ROWS_PER_INSERT) {
+            int end = Math.min(books.size(), start + MAX_ROWS_PER_INSERT);
+            for (int i = 0; i < MAX_ROWS_PER_INSERT; i++) {
+                stmt.setString(i + 1, books.get(Math.min(start + i, end - 1)).getIsbn());
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Book book = new Book(rs.getString("isbn"), rs.getString("title"), rs.getInt("editionNumber"), rs.getString("copyright"));
+                    existing.put(book.getIsbn(), book);
+                }
+            }
+        }
+        return existing;
+    }
+
+    private static boolean sameDetails(Book a, Book b) {
+        return Objects.equals(a.getTitle(), b.getTitle()) && a.getEditionNumber() == b.getEditionNumber()
+                && Objects.equals(a.getCopyright(), b.getCopyright());
+    }
+
+    /**
+     * Inserts rows with statements of exactly MAX_ROWS_PER_INSERT rows, and the rows left over with a batch of
+     * single-row statements. Each table therefore needs only two prepared statements, however many rows a chunk has,
+     * instead of one server-side statement for every possible remainder.
+     * @param insert The start of the statement, up to VALUES.
+     * @param row The placeholders of one row.
+     * @param rowCount The number of rows to insert.
+     * @param binder Binds the parameters of a row.
+     */
+    private void insertRows(Connection connection, String insert, String row, int rowCount, RowBinder binder) throws SQLException {
+        int parametersPerRow = (int) row.chars().filter(c -> c == '?').count();
+        int fullRows = rowCount - rowCount % MAX_ROWS_PER_INSERT;
+        if (fullRows > 0) {
+            PreparedStatement stmt = statementCache.prepare(connection, repeatItems(insert, row, MAX_ROWS_PER_INSERT));
+            for (int start = 0; start < fullRows; start += MAX_ROWS_PER_INSERT) {
+                for (int i = 0; i < MAX_ROWS_PER_INSERT; i++) {
+                    binder.bind(stmt, i * parametersPerRow + 1, start + i);
+                }
+                stmt.executeUpdate();
+            }
+        }
+        if (fullRows < rowCount) {
+            PreparedStatement stmt = statementCache.prepare(connection, insert + row);
+            for (int i = fullRows; i < rowCount; i++) {
+                binder.bind(stmt, 1, i);
                 stmt.addBatch();
             }
             stmt.executeBatch();
         }
     }
 
+    /**
+     * Builds a statement that ends with a list item repeated the given number of times, separated by commas,
+     * such as the value rows of an INSERT.
+     */
+    private static String repeatItems(String start, String item, int count) {
+        StringBuilder sql = new StringBuilder(start.length() + (item.length() + 2) * count);
+        sql.append(start);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(item);
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Associates a book with its authors in the database.
+     * @param connection The connection the book was inserted on.
+     * @param book The book to associate with authors.
+     * @throws SQLException if a database access error occurs.
+     */
+    private void addBookAuthors(Connection connection, Book book) throws SQLException {
+        String query = "INSERT INTO authorISBN (authorID, isbn) VALUES (?, ?)";
+        PreparedStatement stmt = statementCache.prepare(connection, query);
+        for (Author author : book.getAuthors()) {
+            stmt.setInt(1, author.getAuthorId());
+            stmt.setString(2, book.getIsbn());
+            stmt.addBatch();
+        }
+        stmt.executeBatch();
+    }
+
 }
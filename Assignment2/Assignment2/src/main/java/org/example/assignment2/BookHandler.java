@@ -0,0 +1,17 @@
+package org.example.assignment2;
+
+import java.io.IOException;
+
+/**
+ * Receives books one at a time while they are streamed from the database.
+ * @author john-michael woodrow
+ */
+public interface BookHandler {
+
+    /**
+     * Handles the next book of the stream.
+     * @param book The book, with its authors attached.
+     * @throws IOException if the book cannot be written out.
+     */
+    void handle(Book book) throws IOException;
+}
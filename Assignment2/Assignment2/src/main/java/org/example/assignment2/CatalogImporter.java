@@ -0,0 +1,301 @@
+package org.example.assignment2;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.LineNumberReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Imports books, authors and their links from a CSV file in large chunks.
+ * The file uses the same columns as the catalog export: isbn, title, editionNumber, copyright, authors,
+ * where authors is a "; " separated list of "First Last" names.
+ * Authors are resolved against an in-memory name map, and each chunk is written in one transaction.
+ * The number of committed rows is kept in a .progress file next to the CSV so a failed import can be resumed.
+ * A row whose ISBN already belongs to a book with different details is not imported; it is reported and counted as skipped.
+ * So is a row that cannot be parsed, such as one with too few columns or an editionNumber that is not a number.
+ * It is reported with its row and line number, and counts towards the progress once its chunk commits, so a resumed
+ * import does not stop at it again.
+ * @author john-michael woodrow
+ */
+public class CatalogImporter {
+    private static final int DEFAULT_CHUNK_SIZE = 5000;
+
+    private final BookDatabaseManager dbManager;
+    private final int chunkSize;
+    private final Map<String, Author> authorsByName = new HashMap<>();
+    private long conflictingRows;
+    private long invalidRows;
+
+    /**
+     * Creates an importer that writes through the given database manager.
+     * @param dbManager The database manager to write with.
+     * @param chunkSize The number of books written per transaction.
+     */
+    public CatalogImporter(BookDatabaseManager dbManager, int chunkSize) {
+        this.dbManager = dbManager;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Imports the CSV file given as the first argument. An optional second argument sets the chunk size.
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: CatalogImporter <file.csv> [chunkSize]");
+            return;
+        }
+        BookDatabaseManager dbManager = null;
+        try {
+            int chunkSize = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_CHUNK_SIZE;
+            dbManager = BookDatabaseManager.fromConfig(loadConfig());
+            new CatalogImporter(dbManager, chunkSize).importFile(Paths.get(args[0]));
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            if (dbManager != null) {
+                dbManager.close();
+            }
+        }
+    }
+
+    /**
+     * Loads the database configuration from a properties file.
+     * @return A Properties object containing database connection settings.
+     * @throws IOException if the properties file cannot be found or read.
+     */
+    private static Properties loadConfig() throws IOException {
+        Properties props = new Properties();
+        try (InputStream input = CatalogImporter.class.getClassLoader().getResourceAsStream("config.properties")) {
+            if (input == null) {
+                throw new IOException("Sorry, unable to find config.properties");
+            }
+            props.load(input);
+        }
+        return props;
+    }
+
+    /**
+     * Imports a CSV file, skipping the rows committed by an earlier run of the same file.
+     * The progress file is removed once the whole file has been imported.
+     * @param csvFile The file to import.
+     * @return The number of rows imported by this run, not counting the skipped ones.
+     * @throws IOException if the file cannot be read or the progress cannot be saved.
+     * @throws SQLException if a chunk cannot be written. Earlier chunks stay committed.
+     */
+    public long importFile(Path csvFile) throws IOException, SQLException {
+        Path progressFile = Paths.get(csvFile + ".progress");
+        long committedRows = readProgress(progressFile);
+        loadAuthorNames();
+
+        long startTime = System.nanoTime();
+        long importedRows = 0;
+        long readRows = 0;
+        conflictingRows = 0;
+        invalidRows = 0;
+        try (LineNumberReader reader = new LineNumberReader(Files.newBufferedReader(csvFile, StandardCharsets.UTF_8))) {
+            readRecord(reader);
+
+            long skippedRows = 0;
+            List<String> skipped;
+            while (skippedRows < committedRows && (skipped = readRecord(reader)) != null) {
+                if (!isBlank(skipped)) {
+                    skippedRows++;
+                }
+            }
+            if (committedRows > 0) {
+                System.out.println("Resuming after row " + committedRows);
+            }
+
+            List<Book> chunk = new ArrayList<>(chunkSize);
+            List<Author> newAuthors = new ArrayList<>();
+            // Rows read since the last commit, including the invalid ones.
+            long pendingRows = 0;
+            List<String> record;
+            while (true) {
+                int line = reader.getLineNumber() + 1;
+                if ((record = readRecord(reader)) == null) {
+                    break;
+                }
+                if (isBlank(record)) {
+                    continue;
+                }
+                pendingRows++;
+                try {
+                    chunk.add(parseBook(record, newAuthors));
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Skipped row " + (committedRows + readRows + pendingRows) + " (line " + line + "): " + e.getMessage());
+                    invalidRows++;
+                    continue;
+                }
+                if (chunk.size() == chunkSize) {
+                    readRows += pendingRows;
+                    pendingRows = 0;
+                    importedRows += writeChunk(chunk, newAuthors, progressFile, committedRows + readRows, startTime);
+                }
+            }
+            if (pendingRows > 0) {
+                readRows += pendingRows;
+                importedRows += writeChunk(chunk, newAuthors, progressFile, committedRows + readRows, startTime);
+            }
+        }
+
+        Files.deleteIfExists(progressFile);
+        double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+        System.out.printf("Imported %d rows in %.1f seconds (%.0f rows/sec), skipped %d with a conflicting ISBN and %d invalid%n",
+                importedRows, seconds, readRows / Math.max(seconds, 0.001), conflictingRows, invalidRows);
+        return importedRows;
+    }
+
+    /**
+     * Writes one chunk, reports the rows that were skipped, records the new committed row count and reports the import rate so far.
+     * @param committedRows The number of rows of the file handled once this chunk is committed, skipped ones included.
+     * @return The number of rows written.
+     */
+    private int writeChunk(List<Book> chunk, List<Author> newAuthors, Path progressFile, long committedRows, long startTime) throws SQLException, IOException {
+        List<Book> conflicts = dbManager.importChunk(newAuthors, chunk);
+        for (Book book : conflicts) {
+            System.err.println("Skipped ISBN " + book.getIsbn() + " (\"" + book.getTitle() + "\"): the ISBN already belongs to a book with different details");
+        }
+        conflictingRows += conflicts.size();
+        int written = chunk.size() - conflicts.size();
+        Files.write(progressFile, String.valueOf(committedRows).getBytes(StandardCharsets.UTF_8));
+
+        double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+        System.out.printf("Committed %d rows (%.0f rows/sec)%n", committedRows, committedRows / Math.max(seconds, 0.001));
+        chunk.clear();
+        newAuthors.clear();
+        return written;
+    }
+
+    /**
+     * Reads the number of rows committed by an earlier run, or 0 if there was none.
+     */
+    private long readProgress(Path progressFile) throws IOException {
+        if (!Files.exists(progressFile)) {
+            return 0;
+        }
+        return Long.parseLong(new String(Files.readAllBytes(progressFile), StandardCharsets.UTF_8).trim());
+    }
+
+    /**
+     * Loads every existing author into the name map.
+     */
+    private void loadAuthorNames() throws SQLException {
+        authorsByName.clear();
+        for (Author author : dbManager.listAuthors()) {
+            authorsByName.putIfAbsent(nameKey(author.getFirstName(), author.getLastName()), author);
+        }
+    }
+
+    /**
+     * Builds a book from a CSV record and resolves its authors, collecting any authors that are new.
+     * @throws IllegalArgumentException if the record has too few columns or its editionNumber is not a number.
+     *         No author is collected in that case.
+     */
+    private Book parseBook(List<String> record, List<Author> newAuthors) {
+        if (record.size() < 4) {
+            throw new IllegalArgumentException("Expected at least 4 columns but found " + record.size() + ": " + record);
+        }
+        int editionNumber;
+        try {
+            editionNumber = Integer.parseInt(record.get(2).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("editionNumber is not a number: \"" + record.get(2) + "\"");
+        }
+        Book book = new Book(record.get(0).trim(), record.get(1), editionNumber, record.get(3).trim());
+
+        if (record.size() > 4 && !record.get(4).isBlank()) {
+            for (String name : record.get(4).split(";")) {
+                String fullName = name.trim();
+                if (fullName.isEmpty()) {
+                    continue;
+                }
+                int space = fullName.indexOf(' ');
+                String firstName = space < 0 ? fullName : fullName.substring(0, space);
+                String lastName = space < 0 ? "" : fullName.substring(space + 1).trim();
+
+                String key = nameKey(firstName, lastName);
+                Author author = authorsByName.get(key);
+                if (author == null) {
+                    author = new Author(0, firstName, lastName);
+                    authorsByName.put(key, author);
+                    newAuthors.add(author);
+                }
+                // Only the book side is linked, so authors do not collect every imported book in memory.
+                book.getAuthors().add(author);
+            }
+        }
+        return book;
+    }
+
+    /**
+     * Checks whether a record came from an empty line.
+     */
+    private static boolean isBlank(List<String> record) {
+        return record.size() == 1 && record.get(0).isEmpty();
+    }
+
+    /**
+     * Builds the map key for an author name. Matching ignores case, like the database collation.
+     */
+    private static String nameKey(String firstName, String lastName) {
+        return firstName.toLowerCase(Locale.ROOT) + '\t' + lastName.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Reads one CSV record. Quoted fields may contain commas, doubled quotes and line breaks.
+     * @return The fields of the record, or null at the end of the file.
+     */
+    private static List<String> readRecord(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            if (!quoted) {
+                break;
+            }
+            line = reader.readLine();
+            if (line == null) {
+                break;
+            }
+            field.append('\n');
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
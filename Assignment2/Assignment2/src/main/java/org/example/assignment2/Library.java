@@ -2,17 +2,51 @@ package org.example.assignment2;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Represents a library that manages books and authors.
  * Handles book-author relationships using a database manager.
+ * Keeps one shared instance of each book (by ISBN) and each author (by author ID) in memory,
+ * and writes every change through to the database before applying it to those instances.
+ * Authors are also indexed by their case-normalized full name, so name lookups do not scan the catalog,
+ * and titles and author names are kept in search indexes that follow every change.
+ * Changes made by other processes are picked up by syncWithDatabase, which reads the new rows of the catalogChanges table
+ * and then only the books and authors they name, so its cost depends on how much changed rather than on the catalog size.
  * @author john-michael woodrow
  */
 public class Library {
+    private static final long GAP_TIMEOUT_MILLIS = 60_000;
+    private static final int MAX_GAPS = 10_000;
+    private static final int CHANGE_PAGE_SIZE = 10_000;
+    // Above this many changed books and authors, reloading the catalog is cheaper than reading each one.
+    private static final int MAX_SYNCED_CHANGES = 1000;
+
     private final BookDatabaseManager dbManager;
-    private List<Book> books;
-    private List<Author> authors;
+    private Map<String, Book> booksByIsbn = new LinkedHashMap<>();
+    private Map<Integer, Author> authorsById = new LinkedHashMap<>();
+    private Map<String, Author> authorsByName = new HashMap<>();
+    private Map<Integer, String> nameKeysById = new HashMap<>();
+    private SearchIndex<Book> titleSearch = new SearchIndex<>();
+    private SearchIndex<Author> authorSearch = new SearchIndex<>();
+    // Counts the changes made through this library, so a sync can tell that the catalog changed while it was reading
+    // the database. Guarded by this library.
+    private int modifications;
+
+    // Only one thread syncs at a time; the others use the catalog as it is.
+    private final ReentrantLock syncLock = new ReentrantLock();
+    // The latest change ID the catalog is known to include. Guarded by syncLock.
+    private long syncedChangeId;
+    // Missing change IDs below syncedChangeId, with the time they were first missed. Guarded by syncLock.
+    private final TreeMap<Long, Long> gaps = new TreeMap<>();
 
     /**
      * Constructs a Library instance and loads initial data.
@@ -25,38 +59,299 @@ public class Library {
 
     /**
      * Loads books and authors from the database and associates them.
+     * The new catalog replaces the old one only once it has been fully loaded. Callers other than the constructor must hold syncLock.
      */
     private void loadLibraryData() {
         try {
-            books = dbManager.getAllBooks();
-            authors = dbManager.getAllAuthors();
+            // Read before the catalog, so a change made during the load is seen as new by the next sync.
+            long changeId = dbManager.getLatestChangeId();
+            Map<String, Book> bookMap = new LinkedHashMap<>();
+            Map<Integer, Author> authorMap = new LinkedHashMap<>();
+            dbManager.loadCatalog(bookMap, authorMap);
 
-            for (Book book : books) {
-                dbManager.loadAuthorsForBook(book);
+            Map<String, Author> nameMap = new HashMap<>();
+            Map<Integer, String> nameKeys = new HashMap<>();
+            SearchIndex<Author> authorIndex = new SearchIndex<>();
+            for (Author author : authorMap.values()) {
+                String key = nameKey(author.getFirstName(), author.getLastName());
+                nameKeys.put(author.getAuthorId(), key);
+                nameMap.putIfAbsent(key, author);
+                authorIndex.add(author, fullName(author));
+            }
+            SearchIndex<Book> titleIndex = new SearchIndex<>();
+            for (Book book : bookMap.values()) {
+                titleIndex.add(book, book.getTitle());
             }
 
-            for (Author author : authors) {
-                dbManager.loadBooksForAuthor(author);
+            synchronized (this) {
+                booksByIsbn = bookMap;
+                authorsById = authorMap;
+                authorsByName = nameMap;
+                nameKeysById = nameKeys;
+                titleSearch = titleIndex;
+                authorSearch = authorIndex;
             }
+            syncedChangeId = changeId;
         } catch (SQLException e) {
             System.err.println("Error loading library data: " + e.getMessage());
         }
     }
 
+    /**
+     * Builds the name index key for an author. Names are matched without regard to case.
+     */
+    private static String nameKey(String firstName, String lastName) {
+        return firstName.toLowerCase(Locale.ROOT) + '\t' + lastName.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the text an author is searched by.
+     */
+    private static String fullName(Author author) {
+        return author.getFirstName() + " " + author.getLastName();
+    }
+
+    /**
+     * Adds an author to the name and search indexes. If another author already has the same name,
+     * the first one is kept in the name index. Callers must hold the lock.
+     */
+    private void indexName(Author author) {
+        String key = nameKey(author.getFirstName(), author.getLastName());
+        nameKeysById.put(author.getAuthorId(), key);
+        authorsByName.putIfAbsent(key, author);
+        authorSearch.add(author, fullName(author));
+    }
+
+    /**
+     * Removes an author from the name and search indexes under the name it was indexed with.
+     * If another author has the same name, that author takes its place. Callers must hold the lock.
+     */
+    private void unindexName(Author author) {
+        authorSearch.remove(author);
+        String key = nameKeysById.remove(author.getAuthorId());
+        if (key == null || authorsByName.get(key) != author) {
+            return;
+        }
+        authorsByName.remove(key);
+        for (Author other : authorsById.values()) {
+            if (other != author && key.equals(nameKeysById.get(other.getAuthorId()))) {
+                authorsByName.put(key, other);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Removes a book from the catalog, the title index and its authors' book lists. Callers must hold the lock.
+     */
+    private void removeBook(Book book) {
+        booksByIsbn.remove(book.getIsbn());
+        titleSearch.remove(book);
+        for (Author author : book.getAuthors()) {
+            author.getBooks().remove(book);
+        }
+    }
+
+    /**
+     * Removes an author from the catalog, the name indexes and their books' author lists. Callers must hold the lock.
+     */
+    private void removeAuthor(Author author) {
+        unindexName(author);
+        authorsById.remove(author.getAuthorId());
+        for (Book book : author.getBooks()) {
+            book.getAuthors().remove(author);
+        }
+    }
+
+    /**
+     * Discards the in-memory catalog and reloads it from the database.
+     * Use this when the database has been changed outside of this library.
+     */
+    public void invalidate() {
+        syncLock.lock();
+        try {
+            loadLibraryData();
+            gaps.clear();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Applies the changes other processes have made to the catalog since the last sync. Only the books and authors named
+     * by new catalogChanges rows are read again; changes made through this library are already applied and are skipped.
+     * If another thread is already syncing, this returns at once and the caller uses the catalog as it is.
+     * <p>
+     * Change IDs are handed out when a change is made but become visible when its transaction commits, so a missing ID
+     * is looked for again on later syncs until GAP_TIMEOUT_MILLIS has passed. If the catalog is changed through this
+     * library while a sync is reading the database, what it read may be out of date, so it is discarded and read again
+     * on the next sync. When more than MAX_SYNCED_CHANGES books and authors changed, the catalog is reloaded instead.
+     * @throws SQLException if the change log or a changed book or author could not be read.
+     */
+    public void syncWithDatabase() throws SQLException {
+        if (!syncLock.tryLock()) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            gaps.values().removeIf(firstMissed -> now - firstMissed > GAP_TIMEOUT_MILLIS);
+            int startModifications = getModificationCount();
+
+            // Work on copies, so a sync that fails or is discarded reads the same changes again next time.
+            TreeMap<Long, Long> missing = new TreeMap<>(gaps);
+            long lastSeen = syncedChangeId;
+            Set<String> changedBooks = new LinkedHashSet<>();
+            Set<Integer> changedAuthors = new LinkedHashSet<>();
+            // Start below the oldest missing ID, so a change that has been committed since the last sync is picked up.
+            long after = missing.isEmpty() ? lastSeen : Math.min(lastSeen, missing.firstKey() - 1);
+            while (true) {
+                List<CatalogChange> changes = dbManager.getChangesAfter(after, CHANGE_PAGE_SIZE);
+                for (CatalogChange change : changes) {
+                    long id = change.getChangeId();
+                    if (id <= lastSeen) {
+                        if (missing.remove(id) == null) {
+                            continue;
+                        }
+                    } else {
+                        for (long gap = Math.max(lastSeen + 1, id - MAX_GAPS); gap < id; gap++) {
+                            missing.put(gap, now);
+                        }
+                        lastSeen = id;
+                    }
+                    if (!BookDatabaseManager.ORIGIN.equals(change.getOrigin())) {
+                        noteChange(change, changedBooks, changedAuthors);
+                    }
+                }
+                if (changes.size() < CHANGE_PAGE_SIZE) {
+                    break;
+                }
+                after = changes.get(changes.size() - 1).getChangeId();
+            }
+            while (missing.size() > MAX_GAPS) {
+                missing.pollFirstEntry();
+            }
+
+            if (changedBooks.size() + changedAuthors.size() > MAX_SYNCED_CHANGES) {
+                loadLibraryData();
+            } else {
+                if (!changedBooks.isEmpty() || !changedAuthors.isEmpty()) {
+                    Map<Integer, Author> authors = new LinkedHashMap<>();
+                    for (int authorId : changedAuthors) {
+                        authors.put(authorId, dbManager.getAuthorById(authorId));
+                    }
+                    Map<String, Book> books = new LinkedHashMap<>();
+                    for (String isbn : changedBooks) {
+                        books.put(isbn, dbManager.getBookByIsbn(isbn));
+                    }
+                    synchronized (this) {
+                        if (modifications != startModifications) {
+                            return;
+                        }
+                        // Authors first, so new books find their authors.
+                        for (Map.Entry<Integer, Author> entry : authors.entrySet()) {
+                            applyAuthor(entry.getKey(), entry.getValue());
+                        }
+                        for (Map.Entry<String, Book> entry : books.entrySet()) {
+                            applyBook(entry.getKey(), entry.getValue());
+                        }
+                    }
+                }
+                syncedChangeId = lastSeen;
+            }
+            gaps.clear();
+            gaps.putAll(missing);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private static void noteChange(CatalogChange change, Set<String> books, Set<Integer> authors) {
+        if (CatalogChange.BOOK.equals(change.getEntity())) {
+            books.add(change.getEntityKey());
+        } else if (CatalogChange.AUTHOR.equals(change.getEntity())) {
+            try {
+                authors.add(Integer.parseInt(change.getEntityKey()));
+            } catch (NumberFormatException e) {
+                System.err.println("Skipping catalog change " + change.getChangeId() + " with an invalid author ID: " + change.getEntityKey());
+            }
+        }
+    }
+
+    /**
+     * Brings one author in line with the database. Callers must hold the lock.
+     * @param current The author as it is now in the database, or null if it was deleted.
+     */
+    private void applyAuthor(int authorId, Author current) {
+        Author author = authorsById.get(authorId);
+        if (current == null) {
+            if (author != null) {
+                removeAuthor(author);
+            }
+            return;
+        }
+        if (author == null) {
+            authorsById.put(authorId, current);
+            indexName(current);
+        } else if (!author.getFirstName().equals(current.getFirstName()) || !author.getLastName().equals(current.getLastName())) {
+            unindexName(author);
+            author.setFirstName(current.getFirstName());
+            author.setLastName(current.getLastName());
+            indexName(author);
+        }
+    }
+
+    /**
+     * Brings one book and its author links in line with the database. Callers must hold the lock,
+     * and apply author changes first so the book's new authors are known.
+     * @param current The book as it is now in the database, with its authors, or null if it was deleted.
+     */
+    private void applyBook(String isbn, Book current) {
+        Book book = booksByIsbn.get(isbn);
+        if (current == null) {
+            if (book != null) {
+                removeBook(book);
+            }
+            return;
+        }
+        if (book == null) {
+            book = new Book(current.getIsbn(), current.getTitle(), current.getEditionNumber(), current.getCopyright());
+            booksByIsbn.put(isbn, book);
+        } else {
+            book.setTitle(current.getTitle());
+            book.setEditionNumber(current.getEditionNumber());
+            book.setCopyRight(current.getCopyright());
+            for (Author author : book.getAuthors()) {
+                author.getBooks().remove(book);
+            }
+            book.getAuthors().clear();
+        }
+        titleSearch.add(book, book.getTitle());
+        for (Author linked : current.getAuthors()) {
+            Author author = authorsById.get(linked.getAuthorId());
+            if (author != null) {
+                book.addAuthor(author);
+            }
+        }
+    }
+
+    private synchronized int getModificationCount() {
+        return modifications;
+    }
+
     /**
      * Retrieves all books in the library.
      * @return A list of books.
      */
-    public List<Book> getBooks() {
-        return books;
+    public synchronized List<Book> getBooks() {
+        return new ArrayList<>(booksByIsbn.values());
     }
 
     /**
      * Retrieves all authors in the library.
      * @return A list of authors.
      */
-    public List<Author> getAuthors() {
-        return authors;
+    public synchronized List<Author> getAuthors() {
+        return new ArrayList<>(authorsById.values());
     }
 
     /**
@@ -64,8 +359,17 @@ public class Library {
      * @param isbn The ISBN of the book.
      * @return The matching Book or null if not found.
      */
-    public Book getBookByIsbn(String isbn) {
-        return books.stream().filter(book -> book.getIsbn().equals(isbn)).findFirst().orElse(null);
+    public synchronized Book getBookByIsbn(String isbn) {
+        return booksByIsbn.get(isbn);
+    }
+
+    /**
+     * Finds an author by ID.
+     * @param authorId The ID of the author.
+     * @return The matching Author or null if not found.
+     */
+    public synchronized Author getAuthorById(int authorId) {
+        return authorsById.get(authorId);
     }
 
     /**
@@ -74,83 +378,177 @@ public class Library {
      * @param lastName The author's last name.
      * @return The author with the given name, or null if not found.
      */
-    public Author getAuthorByFullName(String firstName, String lastName) {
-        return authors.stream().filter(author -> author.getFirstName().equalsIgnoreCase(firstName) && author.getLastName().equalsIgnoreCase(lastName)).findFirst().orElse(null);
+    public synchronized Author getAuthorByFullName(String firstName, String lastName) {
+        return authorsByName.get(nameKey(firstName, lastName));
+    }
+
+    /**
+     * Finds books whose title has, for every word of the query, a word starting with it.
+     * A query word that starts no title word is replaced by the title words most like it, so a misspelled word
+     * still finds books. Results are not ranked; the first books found up to the limit are returned.
+     * @param query The words to search for.
+     * @param limit The maximum number of books to return.
+     * @return The matching books, in no particular order.
+     */
+    public synchronized List<Book> searchBooks(String query, int limit) {
+        return titleSearch.search(query, limit);
+    }
+
+    /**
+     * Finds authors whose name has, for every word of the query, a word starting with it.
+     * A query word that starts no name is replaced by the names most like it, so a misspelled name
+     * still finds authors. Results are not ranked; the first authors found up to the limit are returned.
+     * @param query The words to search for.
+     * @param limit The maximum number of authors to return.
+     * @return The matching authors, in no particular order.
+     */
+    public synchronized List<Author> searchAuthors(String query, int limit) {
+        return authorSearch.search(query, limit);
     }
 
     /**
-     * Adds a book to the Library and database.
+     * Adds a book to the database and then to the Library.
+     * The book's authors should be instances held by this library.
      * @param book The book to add.
+     * @throws SQLException if the book could not be added to the database.
      */
-    public void addBook(Book book) {
-        books.add(book);
+    public void addBook(Book book) throws SQLException {
         try {
             dbManager.addBook(book);
         } catch (SQLException e) {
-            System.err.println("Error adding book: " + e.getMessage());
+            synchronized (this) {
+                for (Author author : book.getAuthors()) {
+                    author.getBooks().remove(book);
+                }
+            }
+            throw e;
+        }
+        synchronized (this) {
+            modifications++;
+            booksByIsbn.put(book.getIsbn(), book);
+            titleSearch.add(book, book.getTitle());
         }
     }
 
     /**
-     * Updates a book's information in the database.
-     * @param book The book to update.
+     * Adds a book written by one author, adding the author too if the library does not know them yet.
+     * The database work happens in one transaction, and the library is only changed once it has committed.
+     * @param book The book to add.
+     * @param firstName The author's first name.
+     * @param lastName The author's last name.
+     * @throws SQLException if the book could not be added to the database.
      */
-    public void updateBook(Book book) {
-        try {
-            dbManager.updateBook(book);
-        } catch (SQLException e) {
-            System.err.println("Error updating book: " + e.getMessage());
+    public void addBookWithAuthor(Book book, String firstName, String lastName) throws SQLException {
+        Author author = getAuthorByFullName(firstName, lastName);
+        boolean newAuthor = author == null;
+        if (newAuthor) {
+            author = new Author(0, firstName, lastName);
+        }
+
+        dbManager.addBookWithAuthor(book, author);
+
+        synchronized (this) {
+            modifications++;
+            if (newAuthor) {
+                Author existing = authorsById.get(author.getAuthorId());
+                if (existing != null) {
+                    author = existing;
+                } else {
+                    authorsById.put(author.getAuthorId(), author);
+                    indexName(author);
+                }
+            }
+            book.addAuthor(author);
+            booksByIsbn.put(book.getIsbn(), book);
+            titleSearch.add(book, book.getTitle());
+        }
+    }
+
+    /**
+     * Updates a book's information in the database and in the cached book with the same ISBN.
+     * @param book The book holding the new details.
+     * @throws SQLException if the book could not be updated in the database.
+     */
+    public void updateBook(Book book) throws SQLException {
+        dbManager.updateBook(book);
+        synchronized (this) {
+            modifications++;
+            Book cached = booksByIsbn.get(book.getIsbn());
+            if (cached != null) {
+                if (cached != book) {
+                    cached.setTitle(book.getTitle());
+                    cached.setEditionNumber(book.getEditionNumber());
+                    cached.setCopyRight(book.getCopyright());
+                }
+                titleSearch.add(cached, cached.getTitle());
+            }
         }
     }
 
     /**
-     * Deletes a book from the library and database.
+     * Deletes a book from the database and then from the library.
      * @param book The book to delete.
+     * @throws SQLException if the book could not be deleted from the database.
      */
-    public void deleteBook(Book book) {
-        books.remove(book);
-        try {
-            dbManager.deleteBook(book);
-        } catch (SQLException e) {
-            System.err.println("Error deleting book: " + e.getMessage());
+    public void deleteBook(Book book) throws SQLException {
+        dbManager.deleteBook(book);
+        synchronized (this) {
+            modifications++;
+            Book removed = booksByIsbn.get(book.getIsbn());
+            if (removed != null) {
+                removeBook(removed);
+            }
         }
     }
 
     /**
-     * Adds an author to the Library and database.
+     * Adds an author to the database and then to the Library.
      * @param author The author to add.
+     * @throws SQLException if the author could not be added to the database.
      */
-    public void addAuthor(Author author) {
-        authors.add(author);
-        try {
-            dbManager.addAuthor(author);
-        } catch (SQLException e) {
-            System.err.println("Error adding author: " + e.getMessage());
+    public void addAuthor(Author author) throws SQLException {
+        dbManager.addAuthor(author);
+        synchronized (this) {
+            modifications++;
+            authorsById.put(author.getAuthorId(), author);
+            indexName(author);
         }
     }
 
     /**
-     * Updates an author's information in the database.
-     * @param author The author to update.
+     * Updates an author's information in the database and in the cached author with the same ID.
+     * @param author The author holding the new details.
+     * @throws SQLException if the author could not be updated in the database.
      */
-    public void updateAuthor(Author author) {
-        try {
-            dbManager.updateAuthor(author);
-        } catch (SQLException e) {
-            System.err.println("Error updating author: " + e.getMessage());
+    public void updateAuthor(Author author) throws SQLException {
+        dbManager.updateAuthor(author);
+        synchronized (this) {
+            modifications++;
+            Author cached = authorsById.get(author.getAuthorId());
+            if (cached != null) {
+                unindexName(cached);
+                if (cached != author) {
+                    cached.setFirstName(author.getFirstName());
+                    cached.setLastName(author.getLastName());
+                }
+                indexName(cached);
+            }
         }
     }
 
     /**
-     * Deletes an author from the library and database.
+     * Deletes an author from the database and then from the library.
      * @param author The author to delete.
+     * @throws SQLException if the author could not be deleted from the database.
      */
-    public void deleteAuthor(Author author) {
-        authors.remove(author);
-        try {
-            dbManager.deleteAuthor(author);
-        } catch (SQLException e) {
-            System.err.println("Error deleting author: " + e.getMessage());
+    public void deleteAuthor(Author author) throws SQLException {
+        dbManager.deleteAuthor(author);
+        synchronized (this) {
+            modifications++;
+            Author removed = authorsById.get(author.getAuthorId());
+            if (removed != null) {
+                removeAuthor(removed);
+            }
         }
     }
 }
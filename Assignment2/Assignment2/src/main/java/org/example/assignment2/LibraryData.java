@@ -6,58 +6,311 @@ import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Properties;
 
 /**
  * Servlet for handling library data requests.
  */
 @WebServlet("/LibraryData")
 public class LibraryData extends HttpServlet {
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int EXPORT_FLUSH_ROWS = 1000;
+    private static final int SEARCH_LIMIT = 50;
+
     private BookDatabaseManager dbManager;
+    private Library library;
 
     /**
-     * Initializes the servlet by establishing a database connection.
-     * @throws ServletException if the database connection fails.
+     * Initializes the servlet by creating a connection pool from config.properties.
+     * @throws ServletException if the configuration cannot be read or the pool cannot be created.
      */
     @Override
     public void init() throws ServletException {
         try {
-            // Change based on home or class
-            String dbUrl = "jdbc:mariadb://localhost:3306/books";
-            String dbUsername = "root";
-            String dbPassword = "roottoor";
-            dbManager = new BookDatabaseManager(dbUrl, dbUsername, dbPassword);
+            Properties config = loadConfig();
+            dbManager = BookDatabaseManager.fromConfig(config);
+            library = new Library(dbManager);
             System.out.println("LibraryData servlet initialized successfully.");
+        } catch (IOException e) {
+            throw new ServletException("Unable to read database configuration", e);
         } catch (SQLException e) {
             throw new ServletException("Database connection failed", e);
         }
     }
 
+    /**
+     * Closes the connection pool when the servlet is taken out of service.
+     */
+    @Override
+    public void destroy() {
+        if (dbManager != null) {
+            dbManager.close();
+        }
+    }
+
+    /**
+     * Loads the database configuration from a properties file on the classpath.
+     * @return A Properties object containing database connection and pool settings.
+     * @throws IOException if the properties file cannot be found or read.
+     */
+    private Properties loadConfig() throws IOException {
+        Properties props = new Properties();
+        try (InputStream input = LibraryData.class.getClassLoader().getResourceAsStream("config.properties")) {
+            if (input == null) {
+                throw new IOException("Sorry, unable to find config.properties");
+            }
+            props.load(input);
+        }
+        return props;
+    }
+
+    /**
+     * Builds the entity tag for the current catalog version from the latest change ID in the catalogChanges table.
+     * Every writer records its changes there, including other servlet instances, the console app and CatalogImporter,
+     * so the tag changes whoever changed the catalog.
+     */
+    private String getCatalogETag() throws SQLException {
+        return "\"c" + dbManager.getLatestChangeId() + "\"";
+    }
+
+    /**
+     * Checks whether the request is for one of the catalog views that can be answered from a client's cache.
+     */
+    private boolean isCatalogView(HttpServletRequest request) {
+        String view = request.getParameter("view");
+        return "books".equals(view) || "authors".equals(view) || "export".equals(view) || "search".equals(view);
+    }
+
+    /**
+     * Checks whether an If-None-Match header contains the given entity tag.
+     */
+    private static boolean matchesETag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Handles GET requests for viewing books and authors.
+     * Lists are paged with keyset queries: the after or before parameter selects the page by key and limit sets its size.
+     * view=export streams the whole catalog as CSV.
+     * view=search&amp;q= searches titles and author names in the in-memory library, after applying the books and authors
+     * other processes have changed since the last search.
+     * Catalog views carry an ETag built from the catalog version, and a matching If-None-Match gets 304 Not Modified
+     * after a single index lookup. No Last-Modified date is sent, because the change log only records whole seconds
+     * and two changes in the same second would look unchanged to If-Modified-Since.
      */
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         try {
+            if (isCatalogView(request)) {
+                String etag = getCatalogETag();
+                response.setHeader("ETag", etag);
+                response.setHeader("Cache-Control", "no-cache");
+                if (matchesETag(request.getHeader("If-None-Match"), etag)) {
+                    response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                    return;
+                }
+            }
+
             String view = request.getParameter("view");
 
             if ("books".equals(view)) {
-                request.setAttribute("books", dbManager.getAllBooks());
+                setBooksPage(request);
                 request.getRequestDispatcher("viewbooks.jsp").forward(request, response);
             } else if ("authors".equals(view)) {
-                request.setAttribute("authors", dbManager.getAllAuthors());
+                setAuthorsPage(request);
                 request.getRequestDispatcher("viewauthors.jsp").forward(request, response);
+            } else if ("export".equals(view)) {
+                exportBooks(response);
+            } else if ("search".equals(view)) {
+                library.syncWithDatabase();
+                String query = request.getParameter("q");
+                request.setAttribute("query", query == null ? "" : query);
+                request.setAttribute("books", library.searchBooks(query, SEARCH_LIMIT));
+                request.setAttribute("authors", library.searchAuthors(query, SEARCH_LIMIT));
+                request.getRequestDispatcher("search.jsp").forward(request, response);
             } else {
                 response.sendRedirect("index.jsp");
             }
         } catch (SQLException e) {
+            if (response.isCommitted()) {
+                throw new ServletException("Database error after the response was started", e);
+            }
             request.setAttribute("message", "Database error: " + e.getMessage());
             request.getRequestDispatcher("index.jsp").forward(request, response);
         }
     }
 
+    /**
+     * Loads one page of books and the keys for the previous and next page links.
+     * One extra row is requested to find out whether there is another page in that direction.
+     */
+    private void setBooksPage(HttpServletRequest request) throws SQLException {
+        int limit = getPageLimit(request);
+        String after = request.getParameter("after");
+        String before = request.getParameter("before");
+        List<Book> books;
+        boolean hasPrevious;
+        boolean hasNext;
+
+        if (before != null) {
+            books = dbManager.getBooksBefore(before, limit + 1);
+            hasPrevious = books.size() > limit;
+            hasNext = true;
+            if (hasPrevious) {
+                books = books.subList(1, books.size());
+            }
+        } else {
+            books = dbManager.getBooksAfter(after, limit + 1);
+            hasPrevious = after != null;
+            hasNext = books.size() > limit;
+            if (hasNext) {
+                books = books.subList(0, limit);
+            }
+        }
+
+        request.setAttribute("books", books);
+        request.setAttribute("limit", limit);
+        if (!books.isEmpty()) {
+            if (hasPrevious) {
+                request.setAttribute("previousBefore", books.get(0).getIsbn());
+            }
+            if (hasNext) {
+                request.setAttribute("nextAfter", books.get(books.size() - 1).getIsbn());
+            }
+        }
+    }
+
+    /**
+     * Loads one page of authors and the keys for the previous and next page links.
+     * One extra row is requested to find out whether there is another page in that direction.
+     */
+    private void setAuthorsPage(HttpServletRequest request) throws SQLException {
+        int limit = getPageLimit(request);
+        Integer after = parseAuthorId(request.getParameter("after"));
+        Integer before = parseAuthorId(request.getParameter("before"));
+        List<Author> authors;
+        boolean hasPrevious;
+        boolean hasNext;
+
+        if (before != null) {
+            authors = dbManager.getAuthorsBefore(before, limit + 1);
+            hasPrevious = authors.size() > limit;
+            hasNext = true;
+            if (hasPrevious) {
+                authors = authors.subList(1, authors.size());
+            }
+        } else {
+            authors = dbManager.getAuthorsAfter(after == null ? 0 : after, limit + 1);
+            hasPrevious = after != null;
+            hasNext = authors.size() > limit;
+            if (hasNext) {
+                authors = authors.subList(0, limit);
+            }
+        }
+
+        request.setAttribute("authors", authors);
+        request.setAttribute("limit", limit);
+        if (!authors.isEmpty()) {
+            if (hasPrevious) {
+                request.setAttribute("previousBefore", authors.get(0).getAuthorId());
+            }
+            if (hasNext) {
+                request.setAttribute("nextAfter", authors.get(authors.size() - 1).getAuthorId());
+            }
+        }
+    }
+
+    /**
+     * Reads an author ID page key. A missing or invalid key gives null, so the first page is shown.
+     */
+    private static Integer parseAuthorId(String key) {
+        if (key == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(key.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Streams every book to the response as CSV while the rows are read from the database.
+     * The output is flushed periodically so the client starts receiving data immediately.
+     */
+    private void exportBooks(HttpServletResponse response) throws SQLException, IOException {
+        response.setContentType("text/csv;charset=UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"books.csv\"");
+        PrintWriter out = response.getWriter();
+        out.println("isbn,title,editionNumber,copyright,authors");
+        out.flush();
+
+        int[] rows = {0};
+        dbManager.streamBooks(book -> {
+            StringBuilder authors = new StringBuilder();
+            for (Author author : book.getAuthors()) {
+                if (authors.length() > 0) {
+                    authors.append("; ");
+                }
+                authors.append(author.getFirstName()).append(' ').append(author.getLastName());
+            }
+            out.println(toCsv(book.getIsbn()) + "," + toCsv(book.getTitle()) + "," + book.getEditionNumber() + ","
+                    + toCsv(book.getCopyright()) + "," + toCsv(authors.toString()));
+            if (++rows[0] % EXPORT_FLUSH_ROWS == 0) {
+                out.flush();
+            }
+        });
+        out.flush();
+    }
+
+    /**
+     * Quotes a CSV field when it contains a comma, quote or line break.
+     */
+    private static String toCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    /**
+     * Reads the page size from the limit parameter, falling back to the default for missing or invalid values.
+     */
+    private int getPageLimit(HttpServletRequest request) {
+        String limit = request.getParameter("limit");
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        try {
+            return Math.max(1, Math.min(MAX_PAGE_SIZE, Integer.parseInt(limit)));
+        } catch (NumberFormatException e) {
+            return DEFAULT_PAGE_SIZE;
+        }
+    }
+
     /**
      * Handles POST requests for adding, updating, and deleting books or authors.
+     * Every change adds a record to the catalogChanges table, so old records are pruned here once an hour.
      */
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
@@ -84,6 +337,7 @@ public class LibraryData extends HttpServlet {
             request.setAttribute("message", "Error: " + e.getMessage());
             request.getRequestDispatcher("index.jsp").forward(request, response);
         }
+        dbManager.pruneChangesIfDue();
     }
 
     /**
@@ -99,13 +353,7 @@ public class LibraryData extends HttpServlet {
 
         try {
             Book book = new Book(isbn, title, edition, copyright);
-            Author author = dbManager.getAuthorByName(firstName, lastName);
-            if (author == null) {
-                author = new Author(0, firstName, lastName);
-                dbManager.addAuthor(author);
-            }
-            book.addAuthor(author);
-            dbManager.addBook(book);
+            library.addBookWithAuthor(book, firstName, lastName);
 
             request.setAttribute("message", "Book added successfully.");
             response.sendRedirect("LibraryData?view=books"); 
@@ -131,7 +379,7 @@ public class LibraryData extends HttpServlet {
 
         try {
             Author author = new Author(0, firstName, lastName);
-            dbManager.addAuthor(author);
+            library.addAuthor(author);
             request.setAttribute("message", "Author added successfully.");
             response.sendRedirect("LibraryData?view=authors"); // Redirect to author list
         } catch (SQLException e) {
@@ -147,9 +395,13 @@ public class LibraryData extends HttpServlet {
         String isbn = request.getParameter("isbn");
         System.out.println("Attempting to delete book with ISBN: " + isbn);
         try {
-            Book book = dbManager.getBookByIsbn(isbn);
+            Book book = library.getBookByIsbn(isbn);
+            if (book == null) {
+                // The library is only synced for searches, so a book another process added may be missing from it.
+                book = dbManager.getBookByIsbn(isbn);
+            }
             if (book != null) {
-                dbManager.deleteBook(book);
+                library.deleteBook(book);
                 System.out.println("Book deleted successfully: " + isbn);
                 request.setAttribute("message", "Book deleted successfully.");
             } else {
@@ -181,7 +433,7 @@ public class LibraryData extends HttpServlet {
 
         try {
             Book book = new Book(isbn, title, edition, copyright);
-            dbManager.updateBook(book);
+            library.updateBook(book);
             request.setAttribute("message", "Book updated successfully.");
             response.sendRedirect("LibraryData?view=books"); // Redirect to updated book list
         } catch (SQLException e) {
@@ -198,9 +450,13 @@ public class LibraryData extends HttpServlet {
         System.out.println("Attempting to delete author with ID: " + authorId);
 
         try {
-            Author author = dbManager.getAuthorById(authorId);
+            Author author = library.getAuthorById(authorId);
+            if (author == null) {
+                // The library is only synced for searches, so an author another process added may be missing from it.
+                author = dbManager.getAuthorById(authorId);
+            }
             if (author != null) {
-                dbManager.deleteAuthor(author);
+                library.deleteAuthor(author);
                 System.out.println("Author deleted successfully: " + authorId);
                 request.setAttribute("message", "Author deleted successfully.");
             } else {
@@ -230,7 +486,7 @@ public class LibraryData extends HttpServlet {
 
         try {
             Author author = new Author(authorId, firstName, lastName);
-            dbManager.updateAuthor(author);
+            library.updateAuthor(author);
             request.setAttribute("message", "Author updated successfully.");
             response.sendRedirect("LibraryData?view=authors"); // Redirect to updated author list
         } catch (SQLException e) {
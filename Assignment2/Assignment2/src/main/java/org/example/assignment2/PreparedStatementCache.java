@@ -0,0 +1,188 @@
+package org.example.assignment2;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps prepared statements open for each pooled connection so that fixed SQL strings are only prepared once.
+ * Statements handed out by the cache belong to the cache and must not be closed by the caller.
+ * A connection is only used by one thread at a time, so its statements are never shared between threads.
+ * Each connection keeps at most maxStatementsPerConnection statements; the least recently used one is closed to make room.
+ * The statements of a connection are closed and forgotten once the pool closes the connection.
+ * @author john-michael woodrow
+ */
+public class PreparedStatementCache {
+    private final int maxStatementsPerConnection;
+    private final Map<Connection, StatementLru> statements = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates a cache that keeps up to a number of statements per connection.
+     * @param maxStatementsPerConnection The most statements kept open on one connection.
+     */
+    public PreparedStatementCache(int maxStatementsPerConnection) {
+        if (maxStatementsPerConnection < 1) {
+            throw new IllegalArgumentException("maxStatementsPerConnection must be at least 1");
+        }
+        this.maxStatementsPerConnection = maxStatementsPerConnection;
+    }
+
+    /**
+     * Returns a cached statement for the SQL on this connection, preparing it the first time.
+     * @param connection The connection the statement belongs to.
+     * @param sql The SQL to prepare.
+     * @return A prepared statement with its parameters and batch cleared.
+     * @throws SQLException if the statement cannot be prepared.
+     */
+    public PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        return prepare(connection, sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    /**
+     * Returns a cached statement for the SQL on this connection, preparing it the first time.
+     * @param connection The connection the statement belongs to.
+     * @param sql The SQL to prepare.
+     * @param autoGeneratedKeys Either Statement.RETURN_GENERATED_KEYS or Statement.NO_GENERATED_KEYS.
+     * @return A prepared statement with its parameters and batch cleared.
+     * @throws SQLException if the statement cannot be prepared.
+     */
+    public PreparedStatement prepare(Connection connection, String sql, int autoGeneratedKeys) throws SQLException {
+        StatementLru connectionStatements = statements.get(connection);
+        if (connectionStatements == null) {
+            // A connection the cache has not seen usually means the pool replaced one, so drop the ones it closed.
+            removeClosedConnections();
+            connectionStatements = statements.computeIfAbsent(connection, c -> new StatementLru());
+        }
+
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "keys:" + sql : sql;
+        synchronized (connectionStatements) {
+            PreparedStatement stmt = connectionStatements.get(key);
+            if (stmt != null && !stmt.isClosed()) {
+                hits.incrementAndGet();
+                stmt.clearParameters();
+                stmt.clearBatch();
+                return stmt;
+            }
+
+            misses.incrementAndGet();
+            stmt = connection.prepareStatement(sql, autoGeneratedKeys);
+            connectionStatements.put(key, stmt);
+            return stmt;
+        }
+    }
+
+    /**
+     * Closes and forgets the statements of one connection, for a connection that is about to be closed.
+     * @param connection The connection whose statements to drop.
+     */
+    public void evict(Connection connection) {
+        StatementLru connectionStatements = statements.remove(connection);
+        if (connectionStatements != null) {
+            closeAll(connectionStatements);
+        }
+    }
+
+    /**
+     * Closes and forgets the statements of every connection.
+     */
+    public void clear() {
+        for (Connection connection : new ArrayList<>(statements.keySet())) {
+            evict(connection);
+        }
+    }
+
+    /**
+     * Drops the statements of connections that the pool has closed since they were cached.
+     */
+    private void removeClosedConnections() {
+        for (Connection connection : new ArrayList<>(statements.keySet())) {
+            boolean closed;
+            try {
+                closed = connection.isClosed();
+            } catch (SQLException e) {
+                closed = true;
+            }
+            if (closed) {
+                evict(connection);
+            }
+        }
+    }
+
+    /**
+     * Closes the statements of one connection. Errors are ignored, because a statement of a closed connection
+     * is already closed on the server.
+     */
+    private static void closeAll(StatementLru connectionStatements) {
+        List<PreparedStatement> open;
+        synchronized (connectionStatements) {
+            open = new ArrayList<>(connectionStatements.values());
+            connectionStatements.clear();
+        }
+        for (PreparedStatement stmt : open) {
+            closeQuietly(stmt);
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException ignored) {
+            // The statement is unusable either way.
+        }
+    }
+
+    /**
+     * Retrieves how many times a cached statement was reused.
+     * @return The number of cache hits.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Retrieves how many times a statement had to be prepared.
+     * @return The number of cache misses.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Retrieves how many statements were closed to keep a connection within maxStatementsPerConnection.
+     * @return The number of evicted statements.
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * The statements of one connection in access order, closing the least recently used one when it is full.
+     * The statement being prepared is always the most recently used, so a method holding a few statements at once
+     * does not lose one while it runs.
+     */
+    private class StatementLru extends LinkedHashMap<String, PreparedStatement> {
+        StatementLru() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+            if (size() <= maxStatementsPerConnection) {
+                return false;
+            }
+            evictions.incrementAndGet();
+            closeQuietly(eldest.getValue());
+            return true;
+        }
+    }
+}
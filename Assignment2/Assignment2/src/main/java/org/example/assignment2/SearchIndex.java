@@ -0,0 +1,308 @@
+package org.example.assignment2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An in-memory full-text index over short pieces of text such as titles and names.
+ * Text is split into lowercase words. Each word is stored in a prefix trie, so "jav" finds every item with a word
+ * starting with "jav". The distinct words are also indexed by their trigrams, so a query word that starts no indexed word
+ * is replaced by the indexed words that look most like it, which lets misspelled queries still find matches.
+ * Items are added, updated and removed one at a time, so the index can follow changes without being rebuilt.
+ * The index is not thread-safe; callers must synchronize access.
+ * @param <T> The type of item indexed. Items are compared with equals and hashCode.
+ * @author john-michael woodrow
+ */
+public class SearchIndex<T> {
+    // Trigram sets larger than this are skipped when smaller ones are available,
+    // because trigrams that common say little about which word was meant.
+    private static final int MAX_FUZZY_POSTINGS = 20_000;
+    // How many similar words a misspelled query word is replaced by, and how similar they must be (Dice coefficient).
+    private static final int MAX_SIMILAR_WORDS = 5;
+    private static final double MIN_SIMILARITY = 0.4;
+
+    private final TrieNode<T> root = new TrieNode<>();
+    private final Map<String, Set<String>> wordsByTrigram = new HashMap<>();
+    private final Map<T, String[]> indexedWords = new HashMap<>();
+
+    /**
+     * A trie node. The count is the number of item-word pairs stored at or below the node.
+     */
+    private static class TrieNode<T> {
+        private final Map<Character, TrieNode<T>> children = new HashMap<>(4);
+        private Set<T> items;
+        private int count;
+    }
+
+    /**
+     * Adds an item under the words in its text, replacing any text it was indexed with before.
+     * @param item The item to add.
+     * @param text The text to index the item by.
+     */
+    public void add(T item, String text) {
+        remove(item);
+        String[] words = words(text);
+        indexedWords.put(item, words);
+        for (String word : words) {
+            if (addToTrie(word, item)) {
+                for (String trigram : trigrams(word)) {
+                    wordsByTrigram.computeIfAbsent(trigram, t -> new HashSet<>()).add(word);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes an item from the index.
+     * @param item The item to remove.
+     */
+    public void remove(T item) {
+        String[] words = indexedWords.remove(item);
+        if (words == null) {
+            return;
+        }
+        for (String word : words) {
+            if (removeFromTrie(word, item)) {
+                for (String trigram : trigrams(word)) {
+                    Set<String> postings = wordsByTrigram.get(trigram);
+                    if (postings != null) {
+                        postings.remove(word);
+                        if (postings.isEmpty()) {
+                            wordsByTrigram.remove(trigram);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves the number of items in the index.
+     * @return The number of items.
+     */
+    public int size() {
+        return indexedWords.size();
+    }
+
+    /**
+     * Finds the items that have, for every word of the query, a word starting with it.
+     * A query word that starts no indexed word is replaced by the indexed words most similar to it.
+     * Matches are not ranked: the search stops at the first limit items it finds.
+     * @param query The words to look for.
+     * @param limit The maximum number of items to return.
+     * @return The matching items, in no particular order.
+     */
+    public List<T> search(String query, int limit) {
+        String[] words = words(query);
+        if (words.length == 0 || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        // For each query word, the prefixes that satisfy it and the trie nodes they lead to.
+        List<List<String>> prefixes = new ArrayList<>(words.length);
+        List<List<TrieNode<T>>> nodes = new ArrayList<>(words.length);
+        int rarest = -1;
+        int rarestCount = Integer.MAX_VALUE;
+        for (String word : words) {
+            TrieNode<T> node = findNode(word);
+            List<String> alternatives = node != null ? Collections.singletonList(word) : similarWords(word);
+            if (alternatives.isEmpty()) {
+                return Collections.emptyList();
+            }
+            List<TrieNode<T>> wordNodes = new ArrayList<>(alternatives.size());
+            int count = 0;
+            for (String alternative : alternatives) {
+                TrieNode<T> alternativeNode = alternative.equals(word) ? node : findNode(alternative);
+                wordNodes.add(alternativeNode);
+                count += alternativeNode.count;
+            }
+            if (count < rarestCount) {
+                rarest = prefixes.size();
+                rarestCount = count;
+            }
+            prefixes.add(alternatives);
+            nodes.add(wordNodes);
+        }
+
+        // Enumerate the items under the rarest query word and check them against the others,
+        // so the work depends on the most selective word rather than the size of the index.
+        Set<T> results = new LinkedHashSet<>();
+        List<TrieNode<T>> stack = new ArrayList<>(nodes.get(rarest));
+        Collections.reverse(stack);
+        while (!stack.isEmpty()) {
+            TrieNode<T> node = stack.remove(stack.size() - 1);
+            if (node.items != null) {
+                for (T item : node.items) {
+                    if (matchesAll(item, prefixes, rarest)) {
+                        results.add(item);
+                        if (results.size() == limit) {
+                            return new ArrayList<>(results);
+                        }
+                    }
+                }
+            }
+            stack.addAll(node.children.values());
+        }
+        return new ArrayList<>(results);
+    }
+
+    /**
+     * Checks whether the item has a word starting with one of the prefixes of each query word, except the one skipped.
+     */
+    private boolean matchesAll(T item, List<List<String>> prefixes, int skip) {
+        String[] itemWords = indexedWords.get(item);
+        for (int i = 0; i < prefixes.size(); i++) {
+            if (i == skip) {
+                continue;
+            }
+            boolean found = false;
+            for (String prefix : prefixes.get(i)) {
+                for (String itemWord : itemWords) {
+                    if (itemWord.startsWith(prefix)) {
+                        found = true;
+                        break;
+                    }
+                }
+                if (found) {
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the indexed words that share the most trigrams with a word, most similar first.
+     */
+    private List<String> similarWords(String word) {
+        Set<String> wordTrigrams = trigrams(word);
+        List<Set<String>> postings = new ArrayList<>(wordTrigrams.size());
+        for (String trigram : wordTrigrams) {
+            Set<String> candidates = wordsByTrigram.get(trigram);
+            if (candidates != null) {
+                postings.add(candidates);
+            }
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+
+        Map<String, Integer> shared = new HashMap<>();
+        for (int i = 0; i < postings.size(); i++) {
+            if (i > 0 && postings.get(i).size() > MAX_FUZZY_POSTINGS) {
+                break;
+            }
+            for (String candidate : postings.get(i)) {
+                shared.merge(candidate, 1, Integer::sum);
+            }
+        }
+
+        List<String> similar = new ArrayList<>();
+        Map<String, Double> similarity = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+            String candidate = entry.getKey();
+            // A padded word of length n has n + 1 trigrams, if none repeat.
+            double dice = 2.0 * entry.getValue() / (wordTrigrams.size() + candidate.length() + 1);
+            if (dice >= MIN_SIMILARITY) {
+                similar.add(candidate);
+                similarity.put(candidate, dice);
+            }
+        }
+        similar.sort(Comparator.comparing(similarity::get).reversed());
+        return similar.size() > MAX_SIMILAR_WORDS ? similar.subList(0, MAX_SIMILAR_WORDS) : similar;
+    }
+
+    /**
+     * Walks the trie to the node for a word or prefix.
+     */
+    private TrieNode<T> findNode(String prefix) {
+        TrieNode<T> node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        return node;
+    }
+
+    /**
+     * Stores an item at a word's node.
+     * @return true if the word was not in the index before.
+     */
+    private boolean addToTrie(String word, T item) {
+        TrieNode<T> node = root;
+        node.count++;
+        for (int i = 0; i < word.length(); i++) {
+            node = node.children.computeIfAbsent(word.charAt(i), c -> new TrieNode<>());
+            node.count++;
+        }
+        boolean newWord = node.items == null;
+        if (newWord) {
+            node.items = new HashSet<>(2);
+        }
+        node.items.add(item);
+        return newWord;
+    }
+
+    /**
+     * Removes an item from a word's node and prunes nodes that no longer lead to any item.
+     * @return true if no item has the word any more.
+     */
+    private boolean removeFromTrie(String word, T item) {
+        TrieNode<T> node = findNode(word);
+        if (node == null || node.items == null || !node.items.remove(item)) {
+            return false;
+        }
+        boolean wordGone = node.items.isEmpty();
+        if (wordGone) {
+            node.items = null;
+        }
+        TrieNode<T> parent = root;
+        parent.count--;
+        for (int i = 0; i < word.length(); i++) {
+            TrieNode<T> child = parent.children.get(word.charAt(i));
+            child.count--;
+            if (child.count == 0) {
+                parent.children.remove(word.charAt(i));
+                break;
+            }
+            parent = child;
+        }
+        return wordGone;
+    }
+
+    /**
+     * Splits text into lowercase words of letters and digits. Repeated words are kept once.
+     */
+    private static String[] words(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        Set<String> words = new LinkedHashSet<>();
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words.toArray(new String[0]);
+    }
+
+    /**
+     * Returns the trigrams of a word, padded so that its first and last letters also form trigrams.
+     */
+    private static Set<String> trigrams(String word) {
+        String padded = "  " + word + " ";
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result;
+    }
+}
@@ -21,7 +21,14 @@
     <li><a href="addauthor.jsp">Add an Author</a></li>
     <li><a href="LibraryData?view=books">View Books</a></li>
     <li><a href="LibraryData?view=authors">View Authors</a></li>
+    <li><a href="LibraryData?view=export">Export Books (CSV)</a></li>
 </ul>
 
+<form action="LibraryData" method="get">
+    <input type="hidden" name="view" value="search">
+    <input type="text" name="q" placeholder="Title or author">
+    <input type="submit" value="Search">
+</form>
+
 </body>
 </html>
@@ -0,0 +1,55 @@
+<%@ page contentType="text/html;charset=UTF-8" language="java" %>
+<%@ page import="java.util.List, org.example.assignment2.Author, org.example.assignment2.Book" %>
+<html>
+<head><title>Search</title></head>
+<body>
+
+<h1>Search</h1>
+
+<%
+    String query = (String) request.getAttribute("query");
+    String escapedQuery = query.replace("&", "&amp;").replace("\"", "&quot;").replace("<", "&lt;").replace(">", "&gt;");
+%>
+<form action="LibraryData" method="get">
+    <input type="hidden" name="view" value="search">
+    <input type="text" name="q" value="<%= escapedQuery %>">
+    <input type="submit" value="Search">
+</form>
+
+<h2>Books</h2>
+<ul>
+    <%
+        List<Book> books = (List<Book>) request.getAttribute("books");
+        if (books != null && !books.isEmpty()) {
+            for (Book book : books) {
+    %>
+    <li>
+        <%= book.getTitle() %> (ISBN: <%= book.getIsbn() %>, Edition: <%= book.getEditionNumber() %>, Copyright: <%= book.getCopyright() %>)
+    </li>
+    <%  }
+    } else {
+        out.print("<p>No matching books.</p>");
+    }
+    %>
+</ul>
+
+<h2>Authors</h2>
+<ul>
+    <%
+        List<Author> authors = (List<Author>) request.getAttribute("authors");
+        if (authors != null && !authors.isEmpty()) {
+            for (Author author : authors) {
+    %>
+    <li>
+        <%= author.getFirstName() %> <%= author.getLastName() %>
+    </li>
+    <%  }
+    } else {
+        out.print("<p>No matching authors.</p>");
+    }
+    %>
+</ul>
+
+<a href="index.jsp">Back to Home</a>
+</body>
+</html>
@@ -53,6 +53,20 @@
     %>
 </ul>
 
+<%
+    Integer limit = (Integer) request.getAttribute("limit");
+    Integer previousBefore = (Integer) request.getAttribute("previousBefore");
+    Integer nextAfter = (Integer) request.getAttribute("nextAfter");
+%>
+<p>
+    <% if (previousBefore != null) { %>
+    <a href="LibraryData?view=authors&before=<%= previousBefore %>&limit=<%= limit %>">Previous</a>
+    <% } %>
+    <% if (nextAfter != null) { %>
+    <a href="LibraryData?view=authors&after=<%= nextAfter %>&limit=<%= limit %>">Next</a>
+    <% } %>
+</p>
+
 <a href="index.jsp">Back to Home</a>
 </body>
 </html>
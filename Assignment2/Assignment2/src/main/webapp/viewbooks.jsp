@@ -1,5 +1,5 @@
 <%@ page contentType="text/html;charset=UTF-8" language="java" %>
-<%@ page import="java.util.List, org.example.assignment2.Book, org.example.assignment2.Author" %>
+<%@ page import="java.util.List, java.net.URLEncoder, org.example.assignment2.Book, org.example.assignment2.Author" %>
 <html>
 <head><title>Book List</title></head>
 <body>
@@ -50,6 +50,20 @@
     }
     %>
 </ul>
+
+<%
+    Integer limit = (Integer) request.getAttribute("limit");
+    String previousBefore = (String) request.getAttribute("previousBefore");
+    String nextAfter = (String) request.getAttribute("nextAfter");
+%>
+<p>
+    <% if (previousBefore != null) { %>
+    <a href="LibraryData?view=books&before=<%= URLEncoder.encode(previousBefore, "UTF-8") %>&limit=<%= limit %>">Previous</a>
+    <% } %>
+    <% if (nextAfter != null) { %>
+    <a href="LibraryData?view=books&after=<%= URLEncoder.encode(nextAfter, "UTF-8") %>&limit=<%= limit %>">Next</a>
+    <% } %>
+</p>
 <a href="index.jsp">Back to Home</a>
 </body>
 </html>
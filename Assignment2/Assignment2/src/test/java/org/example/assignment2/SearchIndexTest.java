@@ -0,0 +1,158 @@
+package org.example.assignment2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the prefix trie and trigram lookups of SearchIndex, and that they follow items being added, replaced and removed
+ */
+class SearchIndexTest {
+
+    @Test
+    void findsItemsByWordPrefixIgnoringCase() {
+        SearchIndex<String> index = new SearchIndex<>();
+        index.add("java", "Java How to Program");
+        index.add("python", "Python Crash Course");
+        index.add("javascript", "JavaScript: The Good Parts");
+
+        assertEquals(Set.of("java", "javascript"), new HashSet<>(index.search("JAV", 10)));
+        assertEquals(List.of("python"), index.search("crash", 10));
+        assertEquals(List.of("javascript"), index.search("good", 10));
+    }
+
+    @Test
+    void requiresEveryQueryWord() {
+        SearchIndex<String> index = new SearchIndex<>();
+        index.add("java", "Java How to Program");
+        index.add("c", "C How to Program");
+        index.add("cpp", "C++ How to Program");
+
+        assertEquals(Set.of("java", "c", "cpp"), new HashSet<>(index.search("how prog", 10)));
+        assertEquals(List.of("java"), index.search("program jav", 10));
+        assertTrue(index.search("program python", 10).isEmpty());
+    }
+
+    @Test
+    void replacesAMisspelledWordWithSimilarIndexedWords() {
+        SearchIndex<String> index = new SearchIndex<>();
+        index.add("java", "Java How to Program");
+        index.add("deitel", "Paul Deitel");
+        index.add("python", "Python Crash Course");
+
+        assertEquals(List.of("java"), index.search("programing", 10));
+        assertEquals(List.of("java"), index.search("java programing", 10));
+        assertEquals(List.of("python"), index.search("pyhton", 10));
+        assertTrue(index.search("zzzzzz", 10).isEmpty());
+    }
+
+    @Test
+    void stopsAtTheLimit() {
+        SearchIndex<Integer> index = new SearchIndex<>();
+        for (int i = 0; i < 50; i++) {
+            index.add(i, "Edition " + i);
+        }
+
+        assertEquals(10, index.search("edition", 10).size());
+        assertEquals(50, index.search("edition", 100).size());
+        assertTrue(index.search("edition", 0).isEmpty());
+        assertTrue(index.search("   ", 10).isEmpty());
+    }
+
+    @Test
+    void addingAnItemAgainReplacesItsText() {
+        SearchIndex<String> index = new SearchIndex<>();
+        index.add("book", "Old Title");
+        index.add("book", "New Name");
+
+        assertEquals(1, index.size());
+        assertTrue(index.search("old", 10).isEmpty());
+        assertTrue(index.search("title", 10).isEmpty());
+        assertEquals(List.of("book"), index.search("new name", 10));
+    }
+
+    @Test
+    void removedItemsAreNoLongerFound() {
+        SearchIndex<String> index = new SearchIndex<>();
+        index.add("first", "Database Systems");
+        index.add("second", "Database Design");
+        index.remove("first");
+        index.remove("missing");
+
+        assertEquals(1, index.size());
+        assertEquals(List.of("second"), index.search("database", 10));
+        assertTrue(index.search("systems", 10).isEmpty());
+        assertTrue(index.search("sys", 10).isEmpty());
+        // The removed word is gone from the trigram index too, so a misspelling of it finds nothing.
+        assertTrue(index.search("sytems", 10).isEmpty());
+
+        index.add("first", "Database Systems");
+        assertEquals(Set.of("first", "second"), new HashSet<>(index.search("data", 10)));
+        assertEquals(List.of("first"), index.search("sytems", 10));
+    }
+
+    @Test
+    void matchesABruteForceScanThroughAddsAndRemoves() {
+        String[] vocabulary = {"java", "javadoc", "jar", "database", "data", "design", "systems", "system",
+                "program", "programming", "python", "pattern", "patterns", "web", "webapp"};
+        Random random = new Random(42);
+        SearchIndex<Integer> index = new SearchIndex<>();
+        Map<Integer, String> texts = new HashMap<>();
+
+        for (int step = 0; step < 5_000; step++) {
+            int item = random.nextInt(200);
+            if (random.nextInt(4) == 0) {
+                index.remove(item);
+                texts.remove(item);
+            } else {
+                StringBuilder text = new StringBuilder();
+                for (int words = 1 + random.nextInt(4); words > 0; words--) {
+                    text.append(vocabulary[random.nextInt(vocabulary.length)]).append(' ');
+                }
+                index.add(item, text.toString());
+                texts.put(item, text.toString());
+            }
+
+            if (step % 50 == 0) {
+                assertEquals(texts.size(), index.size());
+                String query = randomPrefix(vocabulary, random) + " " + randomPrefix(vocabulary, random);
+                Set<Integer> expected = bruteForce(texts, query);
+                if (!expected.isEmpty()) {
+                    assertEquals(expected, new HashSet<>(index.search(query, Integer.MAX_VALUE)), query);
+                }
+            }
+        }
+    }
+
+    private static String randomPrefix(String[] vocabulary, Random random) {
+        String word = vocabulary[random.nextInt(vocabulary.length)];
+        return word.substring(0, 1 + random.nextInt(word.length()));
+    }
+
+    /**
+     * Returns the items with a word starting with each query word, by checking every item.
+     */
+    private static Set<Integer> bruteForce(Map<Integer, String> texts, String query) {
+        Set<Integer> matches = new HashSet<>();
+        for (Map.Entry<Integer, String> entry : texts.entrySet()) {
+            List<String> words = List.of(entry.getValue().toLowerCase(Locale.ROOT).split(" "));
+            boolean all = true;
+            for (String queryWord : query.split(" ")) {
+                all &= words.stream().anyMatch(word -> word.startsWith(queryWord));
+            }
+            if (all) {
+                matches.add(entry.getKey());
+            }
+        }
+        return matches;
+    }
+}
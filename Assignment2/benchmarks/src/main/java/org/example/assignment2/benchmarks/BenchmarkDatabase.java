@@ -0,0 +1,108 @@
+package org.example.assignment2.benchmarks;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates an in-memory H2 database in MariaDB mode with the same tables as the books database,
+ * seeded with a catalog of a given size.
+ * Every book has one to three authors, and there is one author for every two books.
+ * @author john-michael woodrow
+ */
+public class BenchmarkDatabase {
+    private static final AtomicInteger DATABASE_NUMBER = new AtomicInteger();
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Opens a new, empty database and creates the books schema in it.
+     * @return An open connection to the database.
+     * @throws SQLException if the database cannot be created.
+     */
+    public static Connection create() throws SQLException {
+        String url = "jdbc:h2:mem:books" + DATABASE_NUMBER.incrementAndGet() + ";MODE=MariaDB;DATABASE_TO_LOWER=TRUE";
+        Connection connection = DriverManager.getConnection(url, "sa", "");
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE titles (isbn VARCHAR(20) PRIMARY KEY, title VARCHAR(500) NOT NULL, " +
+                    "editionNumber INT NOT NULL, copyright VARCHAR(4) NOT NULL)");
+            stmt.execute("CREATE TABLE authors (authorID INT AUTO_INCREMENT PRIMARY KEY, " +
+                    "firstName VARCHAR(30) NOT NULL, lastName VARCHAR(30) NOT NULL)");
+            stmt.execute("CREATE TABLE authorISBN (authorID INT NOT NULL, isbn VARCHAR(20) NOT NULL, " +
+                    "PRIMARY KEY (authorID, isbn), " +
+                    "FOREIGN KEY (authorID) REFERENCES authors (authorID), " +
+                    "FOREIGN KEY (isbn) REFERENCES titles (isbn))");
+            stmt.execute("CREATE INDEX authors_name ON authors (lastName, firstName)");
+            stmt.execute("CREATE TABLE catalogChanges (changeID BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                    "entity VARCHAR(6) NOT NULL, entityKey VARCHAR(20) NOT NULL, origin CHAR(36) NOT NULL, " +
+                    "changedAt TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+        }
+        return connection;
+    }
+
+    /**
+     * Fills an empty database with books, authors and links.
+     * @param connection The database to seed.
+     * @param books The number of books to create.
+     * @throws SQLException if the rows cannot be inserted.
+     */
+    public static void seed(Connection connection, int books) throws SQLException {
+        int authors = Math.max(1, books / 2);
+        try (PreparedStatement stmt = connection.prepareStatement("INSERT INTO authors (firstName, lastName) VALUES (?, ?)")) {
+            for (int i = 1; i <= authors; i++) {
+                stmt.setString(1, firstName(i));
+                stmt.setString(2, lastName(i));
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+
+        try (PreparedStatement stmt = connection.prepareStatement("INSERT INTO titles (isbn, title, editionNumber, copyright) VALUES (?, ?, ?, ?)")) {
+            for (int i = 0; i < books; i++) {
+                stmt.setString(1, isbn(i));
+                stmt.setString(2, "Benchmark Title " + i);
+                stmt.setInt(3, 1 + i % 5);
+                stmt.setString(4, String.valueOf(1990 + i % 35));
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+
+        try (PreparedStatement stmt = connection.prepareStatement("INSERT INTO authorISBN (authorID, isbn) VALUES (?, ?)")) {
+            for (int i = 0; i < books; i++) {
+                int count = 1 + i % 3;
+                for (int j = 0; j < count; j++) {
+                    stmt.setInt(1, 1 + (i + j * 7) % authors);
+                    stmt.setString(2, isbn(i));
+                    stmt.addBatch();
+                }
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Returns the ISBN of the seeded book with the given index.
+     */
+    public static String isbn(int index) {
+        return String.format("978%010d", index);
+    }
+
+    /**
+     * Returns the first name of the seeded author with the given ID.
+     */
+    public static String firstName(int authorId) {
+        return "First" + authorId;
+    }
+
+    /**
+     * Returns the last name of the seeded author with the given ID.
+     */
+    public static String lastName(int authorId) {
+        return "Last" + authorId;
+    }
+}
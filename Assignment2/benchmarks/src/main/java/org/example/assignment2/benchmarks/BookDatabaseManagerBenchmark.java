@@ -0,0 +1,166 @@
+package org.example.assignment2.benchmarks;
+
+import org.example.assignment2.Author;
+import org.example.assignment2.Book;
+import org.example.assignment2.BookDatabaseManager;
+import org.example.assignment2.Library;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the BookDatabaseManager read and write paths and Library construction against an in-memory catalog.
+ * Besides ops/s, each benchmark reports a "queries" counter in the same unit, so queries per operation
+ * is the queries score divided by the primary score. Run with -prof gc (the default in BenchmarkRunner)
+ * to also get the allocation rate and bytes allocated per operation.
+ * @author john-michael woodrow
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookDatabaseManagerBenchmark {
+
+    /**
+     * The seeded database and the manager under test, shared by every invocation in a trial.
+     */
+    @State(Scope.Benchmark)
+    public static class Catalog {
+        @Param({"100", "1000", "10000"})
+        public int catalogSize;
+
+        Connection connection;
+        CountingDataSource dataSource;
+        BookDatabaseManager dbManager;
+        int authorCount;
+        int nextRead;
+        int nextIsbn;
+
+        @Setup(Level.Trial)
+        public void setUp() throws SQLException {
+            connection = BenchmarkDatabase.create();
+            BenchmarkDatabase.seed(connection, catalogSize);
+            authorCount = Math.max(1, catalogSize / 2);
+            dataSource = new CountingDataSource(connection);
+            dbManager = new BookDatabaseManager(dataSource);
+        }
+
+        /**
+         * Removes the books added during the iteration so every iteration starts from the same catalog.
+         */
+        @TearDown(Level.Iteration)
+        public void removeAddedBooks() throws SQLException {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.executeUpdate("DELETE FROM authorISBN WHERE isbn LIKE '979%'");
+                stmt.executeUpdate("DELETE FROM titles WHERE isbn LIKE '979%'");
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            dataSource.closePhysical();
+        }
+
+        /**
+         * Picks the next seeded book or author index, cycling through the catalog.
+         */
+        int nextIndex(int bound) {
+            nextRead = (nextRead + 7919) % bound;
+            return nextRead;
+        }
+
+        /**
+         * Builds a book with an ISBN that is not in the seeded catalog.
+         */
+        Book newBook() {
+            return new Book(String.format("979%010d", nextIsbn++), "Added Title", 1, "2025");
+        }
+    }
+
+    /**
+     * The number of statements executed, reported next to the primary score.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class QueryCounter {
+        public long queries;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            queries = 0;
+        }
+    }
+
+    @Benchmark
+    public List<Book> getAllBooks(Catalog catalog, QueryCounter counter) throws SQLException {
+        List<Book> books = catalog.dbManager.getAllBooks();
+        counter.queries += catalog.dataSource.takeQueryCount();
+        return books;
+    }
+
+    @Benchmark
+    public List<Author> getAllAuthors(Catalog catalog, QueryCounter counter) throws SQLException {
+        List<Author> authors = catalog.dbManager.getAllAuthors();
+        counter.queries += catalog.dataSource.takeQueryCount();
+        return authors;
+    }
+
+    @Benchmark
+    public Book getBookByIsbn(Catalog catalog, QueryCounter counter) throws SQLException {
+        Book book = catalog.dbManager.getBookByIsbn(BenchmarkDatabase.isbn(catalog.nextIndex(catalog.catalogSize)));
+        counter.queries += catalog.dataSource.takeQueryCount();
+        return book;
+    }
+
+    @Benchmark
+    public Author getAuthorByName(Catalog catalog, QueryCounter counter) throws SQLException {
+        int authorId = 1 + catalog.nextIndex(catalog.authorCount);
+        Author author = catalog.dbManager.getAuthorByName(BenchmarkDatabase.firstName(authorId), BenchmarkDatabase.lastName(authorId));
+        counter.queries += catalog.dataSource.takeQueryCount();
+        return author;
+    }
+
+    @Benchmark
+    public Book addBook(Catalog catalog, QueryCounter counter) throws SQLException {
+        int authorId = 1 + catalog.nextIndex(catalog.authorCount);
+        Book book = catalog.newBook();
+        book.getAuthors().add(new Author(authorId, BenchmarkDatabase.firstName(authorId), BenchmarkDatabase.lastName(authorId)));
+        catalog.dbManager.addBook(book);
+        counter.queries += catalog.dataSource.takeQueryCount();
+        return book;
+    }
+
+    @Benchmark
+    public Book addBookWithAuthor(Catalog catalog, QueryCounter counter) throws SQLException {
+        int authorId = 1 + catalog.nextIndex(catalog.authorCount);
+        Book book = catalog.newBook();
+        catalog.dbManager.addBookWithAuthor(book, new Author(0, BenchmarkDatabase.firstName(authorId), BenchmarkDatabase.lastName(authorId)));
+        counter.queries += catalog.dataSource.takeQueryCount();
+        return book;
+    }
+
+    @Benchmark
+    public Library newLibrary(Catalog catalog, QueryCounter counter) {
+        Library library = new Library(catalog.dbManager);
+        counter.queries += catalog.dataSource.takeQueryCount();
+        return library;
+    }
+}
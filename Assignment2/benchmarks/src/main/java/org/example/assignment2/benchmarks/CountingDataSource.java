@@ -0,0 +1,144 @@
+package org.example.assignment2.benchmarks;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * A data source that hands out one shared connection and counts the statements executed on it.
+ * Closing the connection only returns it, the same way a pooled connection is returned,
+ * so per-connection caches in BookDatabaseManager behave as they would with a warm pool.
+ * Benchmarks using it must run on a single thread.
+ * @author john-michael woodrow
+ */
+public class CountingDataSource implements DataSource {
+    private final Connection physical;
+    private final Connection shared;
+    private final AtomicLong executed = new AtomicLong();
+
+    /**
+     * Wraps an open connection.
+     * @param physical The connection every borrower shares.
+     */
+    public CountingDataSource(Connection physical) {
+        this.physical = physical;
+        this.shared = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler());
+    }
+
+    /**
+     * Returns the number of statements executed since the last call and starts counting again.
+     * @return The number of execute, executeQuery, executeUpdate and executeBatch calls.
+     */
+    public long takeQueryCount() {
+        return executed.getAndSet(0);
+    }
+
+    /**
+     * Closes the underlying connection.
+     * @throws SQLException if the connection cannot be closed.
+     */
+    public void closePhysical() throws SQLException {
+        physical.close();
+    }
+
+    @Override
+    public Connection getConnection() {
+        return shared;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) {
+        return shared;
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return 0;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return false;
+    }
+
+    /**
+     * Forwards a call to the real object, unwrapping the exception thrown by reflection.
+     */
+    private static Object forward(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Keeps the connection open on close and wraps every statement it creates.
+     * Equality uses the proxy's identity, because BookDatabaseManager keys its statement cache by connection.
+     */
+    private class ConnectionHandler implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    return null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    Object result = forward(physical, method, args);
+                    if (result instanceof Statement) {
+                        return wrapStatement((Statement) result, method.getReturnType());
+                    }
+                    return result;
+            }
+        }
+    }
+
+    /**
+     * Wraps a statement so that its executions are counted.
+     */
+    private Object wrapStatement(Statement statement, Class<?> type) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getName().startsWith("execute")) {
+                executed.incrementAndGet();
+            }
+            return forward(statement, method, args);
+        };
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.assignment2.benchmarks;
+
+import org.example.assignment2.Book;
+import org.example.assignment2.SearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures SearchIndex queries over generated titles. Titles are three to six words drawn from a fixed
+ * vocabulary, so common prefixes match many titles, as they would in a real catalog.
+ * @author john-michael woodrow
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class SearchIndexBenchmark {
+    private static final int VOCABULARY_SIZE = 20_000;
+    private static final int LIMIT = 20;
+
+    @State(Scope.Benchmark)
+    public static class Index {
+        @Param({"10000", "1000000"})
+        public int titleCount;
+
+        SearchIndex<Book> index;
+        String[] vocabulary;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Random random = new Random(42);
+            vocabulary = new String[VOCABULARY_SIZE];
+            for (int i = 0; i < VOCABULARY_SIZE; i++) {
+                vocabulary[i] = randomWord(random);
+            }
+
+            index = new SearchIndex<>();
+            StringBuilder title = new StringBuilder();
+            for (int i = 0; i < titleCount; i++) {
+                title.setLength(0);
+                int words = 3 + random.nextInt(4);
+                for (int j = 0; j < words; j++) {
+                    if (j > 0) {
+                        title.append(' ');
+                    }
+                    title.append(vocabulary[random.nextInt(VOCABULARY_SIZE)]);
+                }
+                index.add(new Book(String.format("978%010d", i), title.toString(), 1, "2025"), title.toString());
+            }
+        }
+
+        /**
+         * Picks the next vocabulary word, cycling through the vocabulary.
+         */
+        String nextWord() {
+            next = (next + 7919) % VOCABULARY_SIZE;
+            return vocabulary[next];
+        }
+
+        private static String randomWord(Random random) {
+            int length = 4 + random.nextInt(7);
+            StringBuilder word = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            return word.toString();
+        }
+    }
+
+    @Benchmark
+    public List<Book> prefix(Index index) {
+        return index.index.search(index.nextWord().substring(0, 3), LIMIT);
+    }
+
+    @Benchmark
+    public List<Book> twoWords(Index index) {
+        return index.index.search(index.nextWord() + " " + index.nextWord().substring(0, 2), LIMIT);
+    }
+
+    @Benchmark
+    public List<Book> misspelled(Index index) {
+        String word = index.nextWord();
+        // Swapping two letters breaks the prefix match, so the trigram postings have to find it.
+        String typo = word.charAt(1) + "" + word.charAt(0) + word.substring(2);
+        return index.index.search(typo, LIMIT);
+    }
+}
@@ -3,11 +3,19 @@ package org.example.spring2025demo3rest.controllers;
 import org.example.spring2025demo3rest.dataaccess.AutoRepository;
 import org.example.spring2025demo3rest.dataaccess.UserRepository;
 import org.example.spring2025demo3rest.pojos.Auto;
+import org.example.spring2025demo3rest.pojos.AutoSummary;
 import org.example.spring2025demo3rest.pojos.User;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Controller that handles operations for Autos belonging to a user
@@ -16,17 +24,30 @@ import java.util.Optional;
 @RequestMapping(path = RESTNouns.VERSION_1 + RESTNouns.USER + RESTNouns.ID + RESTNouns.AUTO)
 public class AutoController {
 
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final Set<String> AUTO_SORT = Set.of("id", "make", "model", "year");
+
     @Autowired private AutoRepository autoRepository;
     @Autowired private UserRepository userRepository;
 
     /**
-     * Get all autos belonging to a user
+     * Get one page of the autos belonging to a user.
+     * Use page, size and sort (id, make, model or year) for numbered pages,
+     * or after with the next value of the previous page to walk through the autos in ID order.
+     * Only the summary columns are read, without the user
      * @param userId
-     * @return All autos for a user
+     * @param after The last auto ID of the previous page, or null for a numbered page
+     * @param pageable The page number, size and sort order
+     * @return The page of autos
      */
     @GetMapping
-    public Iterable<Auto> getAutosByUser(@PathVariable("id") Integer userId) {
-        return autoRepository.getAllByUserId(userId);
+    public PagedResponse<AutoSummary> getAutosByUser(@PathVariable("id") Integer userId, @RequestParam(required = false) Integer after, Pageable pageable) {
+        if (after != null) {
+            Paging.checkKeyset(pageable);
+            return PagedResponse.ofKeyset(autoRepository.findSummariesByUserIdAndIdGreaterThanOrderByIdAsc(userId, after, Limit.of(pageable.getPageSize())),
+                    pageable.getPageSize(), AutoSummary::id);
+        }
+        return PagedResponse.of(autoRepository.findSummariesByUserId(userId, Paging.checkSort(pageable, AUTO_SORT)), AutoSummary::id);
     }
 
     /**
@@ -52,7 +73,33 @@ public class AutoController {
     }
 
     /**
-     * Update an existing auto for a user
+     * Create many autos for a user from a JSON array, in one transaction.
+     * IDs given in the array are ignored. The rows are inserted in JDBC batches
+     * @param userId
+     * @param autos The autos to create, at most MAX_BATCH_SIZE of them
+     * @return The created autos with their IDs
+     */
+    @PostMapping(RESTNouns.BATCH)
+    public @ResponseBody List<AutoSummary> createAutosByUser(@PathVariable("id") Integer userId, @RequestBody List<Auto> autos) {
+        if (autos.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_BATCH_SIZE + " autos can be created at once");
+        }
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found."));
+        for (Auto auto : autos) {
+            auto.setId(null);
+            auto.setUser(user);
+        }
+        List<AutoSummary> created = new ArrayList<>(autos.size());
+        for (Auto auto : autoRepository.saveAll(autos)) {
+            created.add(new AutoSummary(auto.getId(), auto.getMake(), auto.getModel(), auto.getYear()));
+        }
+        return created;
+    }
+
+    /**
+     * Update an existing auto for a user. The ownership check and the update are one statement;
+     * only when nothing was updated is the auto looked up to tell which message applies
      * @param userId
      * @param autoId
      * @param make
@@ -62,29 +109,24 @@ public class AutoController {
      */
     @PutMapping("/{autoId}")
     public @ResponseBody String updateAuto(@PathVariable("id") Integer userId, @PathVariable("autoId") Integer autoId, @RequestParam String make, @RequestParam String model, @RequestParam int year) {
-        Optional<Auto> optionalAuto = autoRepository.findById(autoId);
-        if (optionalAuto.isPresent() && optionalAuto.get().getUser().getId().equals(userId)) {
-            Auto auto = optionalAuto.get();
-            auto.setMake(make);
-            auto.setModel(model);
-            auto.setYear(year);
-            autoRepository.save(auto);
+        if (autoRepository.updateByIdAndUserId(autoId, userId, make, model, year) > 0) {
             return "Auto updated.";
         }
-        return "Auto not found.";
+        return autoRepository.existsById(autoId) ? "User mismatch — not owner." : "Auto not found.";
     }
 
     /**
-     * Delete an auto for a user
+     * Delete an auto for a user, checking the owner in the same statement
      * @param userId
      * @param autoId
+     * @return String message indicating result
      */
     @DeleteMapping("/{autoId}")
-    public void deleteAuto(@PathVariable("id") Integer userId, @PathVariable("autoId") Integer autoId) {
-        Optional<Auto> optionalAuto = autoRepository.findById(autoId);
-        if (optionalAuto.isPresent() && optionalAuto.get().getUser().getId().equals(userId)) {
-            autoRepository.deleteById(autoId);
+    public @ResponseBody String deleteAuto(@PathVariable("id") Integer userId, @PathVariable("autoId") Integer autoId) {
+        if (autoRepository.deleteByIdAndUserId(autoId, userId) > 0) {
+            return "Auto deleted.";
         }
+        return autoRepository.existsById(autoId) ? "User mismatch — not owner." : "Auto not found.";
     }
 }
 
@@ -3,12 +3,20 @@ package org.example.spring2025demo3rest.controllers;
 import org.example.spring2025demo3rest.dataaccess.HomeRepository;
 import org.example.spring2025demo3rest.dataaccess.UserRepository;
 import org.example.spring2025demo3rest.pojos.Home;
+import org.example.spring2025demo3rest.pojos.HomeSummary;
 import org.example.spring2025demo3rest.pojos.User;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Controller that handles operations for managing Homes related to a specific User
@@ -17,17 +25,30 @@ import java.util.Optional;
 @RequestMapping(path = RESTNouns.VERSION_1 + RESTNouns.USER + RESTNouns.ID + RESTNouns.HOME)
 public class HomeController {
 
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final Set<String> HOME_SORT = Set.of("id", "dateBuilt", "value", "heatingType", "location");
+
     @Autowired private HomeRepository homeRepository;
     @Autowired private UserRepository userRepository;
 
     /**
-     * Get all homes belonging to a user
+     * Get one page of the homes belonging to a user.
+     * Use page, size and sort (id, dateBuilt, value, heatingType or location) for numbered pages,
+     * or after with the next value of the previous page to walk through the homes in ID order.
+     * Only the summary columns are read, without the user
      * @param userId The ID of the user
-     * @return All homes for a user
+     * @param after The last home ID of the previous page, or null for a numbered page
+     * @param pageable The page number, size and sort order
+     * @return The page of homes
      */
     @GetMapping
-    public Iterable<Home> getAllHomesByUser(@PathVariable("id") Integer userId) {
-        return homeRepository.getAllByUserId(userId);
+    public PagedResponse<HomeSummary> getAllHomesByUser(@PathVariable("id") Integer userId, @RequestParam(required = false) Integer after, Pageable pageable) {
+        if (after != null) {
+            Paging.checkKeyset(pageable);
+            return PagedResponse.ofKeyset(homeRepository.findSummariesByUserIdAndIdGreaterThanOrderByIdAsc(userId, after, Limit.of(pageable.getPageSize())),
+                    pageable.getPageSize(), HomeSummary::id);
+        }
+        return PagedResponse.of(homeRepository.findSummariesByUserId(userId, Paging.checkSort(pageable, HOME_SORT)), HomeSummary::id);
     }
 
     /**
@@ -55,7 +76,33 @@ public class HomeController {
     }
 
     /**
-     * Update a home for a user
+     * Create many homes for a user from a JSON array, in one transaction.
+     * IDs given in the array are ignored. The rows are inserted in JDBC batches
+     * @param userId
+     * @param homes The homes to create, at most MAX_BATCH_SIZE of them
+     * @return The created homes with their IDs
+     */
+    @PostMapping(RESTNouns.BATCH)
+    public @ResponseBody List<HomeSummary> createHomesByUser(@PathVariable("id") Integer userId, @RequestBody List<Home> homes) {
+        if (homes.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_BATCH_SIZE + " homes can be created at once");
+        }
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found."));
+        for (Home home : homes) {
+            home.setId(null);
+            home.setUser(user);
+        }
+        List<HomeSummary> created = new ArrayList<>(homes.size());
+        for (Home home : homeRepository.saveAll(homes)) {
+            created.add(new HomeSummary(home.getId(), home.getDateBuilt(), home.getValue(), home.getHeatingType(), home.getLocation()));
+        }
+        return created;
+    }
+
+    /**
+     * Update a home for a user. The ownership check and the update are one statement;
+     * only when nothing was updated is the home looked up to tell which message applies
      * @param userId
      * @param homeId
      * @param dateBuilt
@@ -66,37 +113,25 @@ public class HomeController {
      */
     @PutMapping("/{homeId}")
     public @ResponseBody String updateHomeByUser(@PathVariable("id") Integer userId, @PathVariable("homeId") Integer homeId, @RequestParam LocalDate dateBuilt, @RequestParam int heatingType, @RequestParam int location, @RequestParam int value) {
-        Optional<Home> optionalHome = homeRepository.findById(homeId);
-
-        if (optionalHome.isPresent()) {
-            if (optionalHome.get().getUser().getId().equals(userId)) {
-                Home home = optionalHome.get();
-                home.setDateBuilt(dateBuilt);
-                home.setHeatingType(Home.HeatingType.values()[heatingType]);
-                home.setLocation(Home.Location.values()[location]);
-                home.setValue(value);
-                homeRepository.save(home);
-                return "Home updated.";
-            } else {
-                return "User mismatch — not owner.";
-            }
+        int updated = homeRepository.updateByIdAndUserId(homeId, userId, dateBuilt,
+                Home.HeatingType.values()[heatingType], Home.Location.values()[location], value);
+        if (updated > 0) {
+            return "Home updated.";
         }
-        return "Home not found.";
+        return homeRepository.existsById(homeId) ? "User mismatch — not owner." : "Home not found.";
     }
 
     /**
-     * Delete a home for a user
+     * Delete a home for a user, checking the owner in the same statement
      * @param userId
      * @param homeId
      * @return Success or failure message
      */
     @DeleteMapping("/{homeId}")
     public @ResponseBody String deleteHomeByUser(@PathVariable("id") Integer userId, @PathVariable("homeId") Integer homeId) {
-        Optional<Home> optionalHome = homeRepository.findById(homeId);
-        if (optionalHome.isPresent() && optionalHome.get().getUser().getId().equals(userId)) {
-            homeRepository.deleteById(homeId);
+        if (homeRepository.deleteByIdAndUserId(homeId, userId) > 0) {
             return "Home deleted.";
         }
-        return "Home not found.";
+        return homeRepository.existsById(homeId) ? "User mismatch — not owner." : "Home not found.";
     }
 }
@@ -3,10 +3,13 @@ package org.example.spring2025demo3rest.controllers;
 import org.example.spring2025demo3rest.dataaccess.UserRepository;
 import org.example.spring2025demo3rest.pojos.User;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Controller that handles all REST API endpoints related to Users.
@@ -16,15 +19,26 @@ import java.util.Optional;
 @RequestMapping(path = RESTNouns.VERSION_1)
 public class MainController {
 
+    private static final Set<String> USER_SORT = Set.of("id", "name", "email");
+
     @Autowired private UserRepository userRepository;
 
     /**
-     * Get all users in the database
-     * @return List of all users
+     * Get one page of the users in the database.
+     * Use page, size and sort (id, name or email, e.g. sort=name,desc) for numbered pages,
+     * or after with the next value of the previous page to walk through all users in ID order without counting them
+     * @param after The last user ID of the previous page, or null for a numbered page
+     * @param pageable The page number, size and sort order
+     * @return The page of users
      */
     @GetMapping(path = RESTNouns.USER)
-    public @ResponseBody Iterable<User> getAllUsers() {
-        return userRepository.findAll();
+    public @ResponseBody PagedResponse<User> getAllUsers(@RequestParam(required = false) Integer after, Pageable pageable) {
+        if (after != null) {
+            Paging.checkKeyset(pageable);
+            return PagedResponse.ofKeyset(userRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(pageable.getPageSize())),
+                    pageable.getPageSize(), User::getId);
+        }
+        return PagedResponse.of(userRepository.findAll(Paging.checkSort(pageable, USER_SORT)), User::getId);
     }
 
     /**
@@ -0,0 +1,125 @@
+package org.example.spring2025demo3rest.controllers;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a collection endpoint, with the metadata a client needs to ask for the next page.
+ * Offset pages report their number and the totals. Keyset pages (requested with an after cursor) leave the totals out,
+ * because counting every row is what keyset paging avoids.
+ * Both kinds report next, the cursor to pass as after to get the following page, or null on the last page.
+ * An offset page only reports next when it is sorted by ID alone, ascending, because the after cursor always
+ * continues in ID order; for any other sort, following it would skip or repeat rows.
+ * @param <T> The type of the elements
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PagedResponse<T> {
+
+    private static final Sort ID_ORDER = Sort.by(Sort.Direction.ASC, "id");
+
+    private final List<T> content;
+    private final Integer page;
+    private final int size;
+    private final Long totalElements;
+    private final Integer totalPages;
+    private final String sort;
+    private final Integer next;
+
+    private PagedResponse(List<T> content, Integer page, int size, Long totalElements, Integer totalPages, String sort, Integer next) {
+        this.content = content;
+        this.page = page;
+        this.size = size;
+        this.totalElements = totalElements;
+        this.totalPages = totalPages;
+        this.sort = sort;
+        this.next = next;
+    }
+
+    /**
+     * Wrap a page found by page number
+     * @param page The page
+     * @param id Gets the ID of an element, used for the next cursor when the page is in ID order
+     * @return The response
+     * @param <T> The type of the elements
+     */
+    public static <T> PagedResponse<T> of(Page<T> page, Function<T, Integer> id) {
+        List<T> content = page.getContent();
+        Integer next = page.hasNext() && !content.isEmpty() && ID_ORDER.equals(page.getSort())
+                ? id.apply(content.get(content.size() - 1)) : null;
+        return new PagedResponse<>(content, page.getNumber(), page.getSize(), page.getTotalElements(), page.getTotalPages(),
+                page.getSort().toString(), next);
+    }
+
+    /**
+     * Wrap a page found by keyset, in ID order
+     * @param content The elements after the cursor, at most size of them
+     * @param size The requested page size
+     * @param id Gets the ID of an element, used for the next cursor
+     * @return The response
+     * @param <T> The type of the elements
+     */
+    public static <T> PagedResponse<T> ofKeyset(List<T> content, int size, Function<T, Integer> id) {
+        Integer next = content.size() == size && !content.isEmpty() ? id.apply(content.get(content.size() - 1)) : null;
+        return new PagedResponse<>(content, null, size, null, null, ID_ORDER.toString(), next);
+    }
+
+    /**
+     * Get the elements of the page
+     * @return content
+     */
+    public List<T> getContent() {
+        return content;
+    }
+
+    /**
+     * Get the page number, counting from 0, or null for a keyset page
+     * @return page
+     */
+    public Integer getPage() {
+        return page;
+    }
+
+    /**
+     * Get the requested page size
+     * @return size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Get the number of elements on all pages, or null for a keyset page
+     * @return totalElements
+     */
+    public Long getTotalElements() {
+        return totalElements;
+    }
+
+    /**
+     * Get the number of pages, or null for a keyset page
+     * @return totalPages
+     */
+    public Integer getTotalPages() {
+        return totalPages;
+    }
+
+    /**
+     * Get the order of the elements
+     * @return sort
+     */
+    public String getSort() {
+        return sort;
+    }
+
+    /**
+     * Get the cursor for the next page, or null if this is the last page or the page is not in ID order
+     * @return next
+     */
+    public Integer getNext() {
+        return next;
+    }
+}
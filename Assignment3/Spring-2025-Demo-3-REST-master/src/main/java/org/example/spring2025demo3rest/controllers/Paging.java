@@ -0,0 +1,51 @@
+package org.example.spring2025demo3rest.controllers;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Set;
+
+/**
+ * Checks the paging parameters of the collection endpoints.
+ * The page size is capped by spring.data.web.pageable.max-page-size.
+ */
+public class Paging {
+
+    private Paging() {
+    }
+
+    /**
+     * Check that a page is sorted only by allowed properties, and add the ID as the last sort key,
+     * so rows with equal sort values keep the same order from one page to the next
+     * @param pageable The requested page
+     * @param sortable The properties the collection may be sorted by
+     * @return The page to query
+     * @throws ResponseStatusException with status 400 if a sort property is not allowed
+     */
+    public static Pageable checkSort(Pageable pageable, Set<String> sortable) {
+        Sort sort = pageable.getSort();
+        for (Sort.Order order : sort) {
+            if (!sortable.contains(order.getProperty())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot sort by " + order.getProperty() + ", use one of " + sortable);
+            }
+        }
+        if (sort.getOrderFor("id") == null) {
+            sort = sort.and(Sort.by("id"));
+        }
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+    }
+
+    /**
+     * Check that a keyset page was not also asked for by page number or sort order, since keyset pages always follow the ID
+     * @param pageable The requested page
+     * @throws ResponseStatusException with status 400 if a page number or sort order was given
+     */
+    public static void checkKeyset(Pageable pageable) {
+        if (pageable.getPageNumber() != 0 || pageable.getSort().isSorted()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "after cannot be combined with page or sort");
+        }
+    }
+}
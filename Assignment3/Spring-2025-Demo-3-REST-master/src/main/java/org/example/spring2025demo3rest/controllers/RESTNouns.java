@@ -9,4 +9,5 @@ public class RESTNouns {
     public static final String ID = "/{id}";
     public static final String HOME = "/homes";
     public static final String AUTO = "/autos";
+    public static final String BATCH = "/batch";
 }
@@ -1,10 +1,70 @@
 package org.example.spring2025demo3rest.dataaccess;
 
 import org.example.spring2025demo3rest.pojos.Auto;
+import org.example.spring2025demo3rest.pojos.AutoSummary;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 public interface AutoRepository extends JpaRepository<Auto, Integer> {
-    List<Auto> getAllByUserId(Integer userId);
+    /**
+     * Get one page of the autos for a user as summaries.
+     * Filters on the user_id column, so the user table is not joined
+     * @param userId
+     * @param pageable The page number, size and sort order
+     * @return The page with the total count
+     */
+    @Transactional(readOnly = true)
+    @Query("select new org.example.spring2025demo3rest.pojos.AutoSummary(a.id, a.make, a.model, a.year) from Auto a where a.user.id = :userId")
+    Page<AutoSummary> findSummariesByUserId(Integer userId, Pageable pageable);
+
+    /**
+     * Get the autos for a user after an auto ID as summaries, in ID order.
+     * Filters on the user_id column, so the user table is not joined
+     * @param userId
+     * @param after The last auto ID of the previous page
+     * @param limit The maximum number of autos
+     * @return The autos
+     */
+    @Transactional(readOnly = true)
+    @Query("select new org.example.spring2025demo3rest.pojos.AutoSummary(a.id, a.make, a.model, a.year) from Auto a where a.user.id = :userId and a.id > :after order by a.id")
+    List<AutoSummary> findSummariesByUserIdAndIdGreaterThanOrderByIdAsc(Integer userId, Integer after, Limit limit);
+
+    /**
+     * Count the autos of a user
+     * @param userId
+     * @return The number of autos
+     */
+    long countByUserId(Integer userId);
+
+    /**
+     * Update an auto in one statement, only if it belongs to the user
+     * @param id The auto ID
+     * @param userId The ID of the user that must own the auto
+     * @param make
+     * @param model
+     * @param year
+     * @return 1 if the auto was updated, 0 if it does not exist or belongs to another user
+     */
+    @Modifying
+    @Transactional
+    @Query("update Auto a set a.make = :make, a.model = :model, a.year = :year where a.id = :id and a.user.id = :userId")
+    int updateByIdAndUserId(Integer id, Integer userId, String make, String model, int year);
+
+    /**
+     * Delete an auto in one statement, only if it belongs to the user
+     * @param id The auto ID
+     * @param userId The ID of the user that must own the auto
+     * @return 1 if the auto was deleted, 0 if it does not exist or belongs to another user
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from Auto a where a.id = :id and a.user.id = :userId")
+    int deleteByIdAndUserId(Integer id, Integer userId);
 }
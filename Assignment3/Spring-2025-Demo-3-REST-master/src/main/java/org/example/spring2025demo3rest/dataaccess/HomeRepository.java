@@ -1,8 +1,17 @@
 package org.example.spring2025demo3rest.dataaccess;
 
 import org.example.spring2025demo3rest.pojos.Home;
+import org.example.spring2025demo3rest.pojos.HomeSummary;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -11,11 +20,61 @@ import java.util.Optional;
 public interface HomeRepository extends CrudRepository<Home, Integer> {
 
     /**
-     * Get all homes for a user
+     * Get one page of the homes for a user as summaries.
+     * Filters on the user_id column, so the user table is not joined
      * @param userId
-     * @return
+     * @param pageable The page number, size and sort order
+     * @return The page with the total count
+     */
+    @Transactional(readOnly = true)
+    @Query("select new org.example.spring2025demo3rest.pojos.HomeSummary(h.id, h.dateBuilt, h.value, h.heatingType, h.location) from Home h where h.user.id = :userId")
+    Page<HomeSummary> findSummariesByUserId(Integer userId, Pageable pageable);
+
+    /**
+     * Get the homes for a user after a home ID as summaries, in ID order.
+     * Filters on the user_id column, so the user table is not joined
+     * @param userId
+     * @param after The last home ID of the previous page
+     * @param limit The maximum number of homes
+     * @return The homes
+     */
+    @Transactional(readOnly = true)
+    @Query("select new org.example.spring2025demo3rest.pojos.HomeSummary(h.id, h.dateBuilt, h.value, h.heatingType, h.location) from Home h where h.user.id = :userId and h.id > :after order by h.id")
+    List<HomeSummary> findSummariesByUserIdAndIdGreaterThanOrderByIdAsc(Integer userId, Integer after, Limit limit);
+
+    /**
+     * Count the homes of a user
+     * @param userId
+     * @return The number of homes
+     */
+    long countByUserId(Integer userId);
+
+    /**
+     * Update a home in one statement, only if it belongs to the user
+     * @param id The home ID
+     * @param userId The ID of the user that must own the home
+     * @param dateBuilt
+     * @param heatingType
+     * @param location
+     * @param value
+     * @return 1 if the home was updated, 0 if it does not exist or belongs to another user
+     */
+    @Modifying
+    @Transactional
+    @Query("update Home h set h.dateBuilt = :dateBuilt, h.heatingType = :heatingType, h.location = :location, h.value = :value " +
+            "where h.id = :id and h.user.id = :userId")
+    int updateByIdAndUserId(Integer id, Integer userId, LocalDate dateBuilt, Home.HeatingType heatingType, Home.Location location, int value);
+
+    /**
+     * Delete a home in one statement, only if it belongs to the user
+     * @param id The home ID
+     * @param userId The ID of the user that must own the home
+     * @return 1 if the home was deleted, 0 if it does not exist or belongs to another user
      */
-    Iterable<Home> getAllByUserId(Integer userId);
+    @Modifying
+    @Transactional
+    @Query("delete from Home h where h.id = :id and h.user.id = :userId")
+    int deleteByIdAndUserId(Integer id, Integer userId);
 
     /**
      * Get user by ID
@@ -1,12 +1,24 @@
 package org.example.spring2025demo3rest.dataaccess;
 
 import org.example.spring2025demo3rest.pojos.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
+
+import java.util.List;
 
 /**
  * User Repository interface that will be used by String to create a bean that handles all the CRUD operations
  */
-public interface UserRepository extends CrudRepository<User, Integer> {
+public interface UserRepository extends CrudRepository<User, Integer>, PagingAndSortingRepository<User, Integer> {
     User getUserById(Integer id);
 
+    /**
+     * Get the users after a user ID, in ID order. Reads only the rows it returns, however deep into the table they are
+     * @param after The last user ID of the previous page
+     * @param limit The maximum number of users
+     * @return The users
+     */
+    List<User> findByIdGreaterThanOrderByIdAsc(Integer after, Limit limit);
+
 }
@@ -8,15 +8,18 @@ import jakarta.persistence.*;
 @Entity
 public class Auto {
 
+    // IDs come from a sequence 50 at a time, so Hibernate can batch inserts instead of waiting for each generated key
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "auto_seq")
+    @SequenceGenerator(name = "auto_seq", sequenceName = "auto_seq", allocationSize = 50)
     private Integer id;
 
     private String make;
     private String model;
     private int year;
 
-    @ManyToOne
+    // Loaded only when used. The queries that list a user's autos read summaries and never need it
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user; // User can have many autos
 
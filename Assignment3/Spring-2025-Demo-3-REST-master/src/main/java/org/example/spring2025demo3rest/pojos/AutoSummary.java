@@ -0,0 +1,12 @@
+package org.example.spring2025demo3rest.pojos;
+
+/**
+ * The columns of an Auto that the read endpoints return, without the owning user.
+ * Queries that return it select only these columns and create no managed entities
+ * @param id The auto ID
+ * @param make The make of the vehicle
+ * @param model The model of the vehicle
+ * @param year The year the auto was manufactured
+ */
+public record AutoSummary(Integer id, String make, String model, int year) {
+}
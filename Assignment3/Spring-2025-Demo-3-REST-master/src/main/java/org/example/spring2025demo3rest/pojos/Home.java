@@ -12,7 +12,10 @@ import java.time.LocalDate;
 @Entity
 public class Home {
 
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // IDs come from a sequence 50 at a time, so Hibernate can batch inserts instead of waiting for each generated key
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "home_seq")
+    @SequenceGenerator(name = "home_seq", sequenceName = "home_seq", allocationSize = 50)
     private Integer id;
 
     @JsonFormat(pattern="yyyy-MM-dd")
@@ -25,7 +28,8 @@ public class Home {
 
     private Location location;
 
-    @ManyToOne
+    // Loaded only when used. The queries that list a user's homes read summaries and never need it
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="user_id")
     private User user;      //User can have many homes - this will maintain the relationship
 
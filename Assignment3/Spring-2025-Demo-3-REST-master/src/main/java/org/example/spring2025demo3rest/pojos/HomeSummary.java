@@ -0,0 +1,21 @@
+package org.example.spring2025demo3rest.pojos;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDate;
+
+/**
+ * The columns of a Home that the read endpoints return, without the owning user.
+ * Queries that return it select only these columns and create no managed entities
+ * @param id The home ID
+ * @param dateBuilt The date the home was built
+ * @param value The value of the home
+ * @param heatingType The heating type
+ * @param location The location type
+ */
+public record HomeSummary(Integer id,
+                          @JsonFormat(pattern = "yyyy-MM-dd") LocalDate dateBuilt,
+                          int value,
+                          Home.HeatingType heatingType,
+                          Home.Location location) {
+}
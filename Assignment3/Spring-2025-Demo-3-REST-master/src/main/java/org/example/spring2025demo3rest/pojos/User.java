@@ -1,18 +1,23 @@
 package org.example.spring2025demo3rest.pojos;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 
 /**
  * User Class with annotations for Hibernate ORM
  */
 @Entity // This tells Hibernate to make a table out of this class
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"}) // Lets a lazy-loaded user be written as JSON
 public class User {
 
+    // IDs come from a sequence 50 at a time, so Hibernate can batch inserts instead of waiting for each generated key
     @Id
-    @GeneratedValue(strategy= GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_seq")
+    @SequenceGenerator(name = "user_seq", sequenceName = "user_seq", allocationSize = 50)
     private Integer id;
     private String name;
     private String email;
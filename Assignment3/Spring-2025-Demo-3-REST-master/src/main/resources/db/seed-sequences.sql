@@ -0,0 +1,28 @@
+-- Creates the ID sequences of users, homes and autos above the IDs already in the tables.
+--
+-- Run this once, with the application stopped, on a database whose tables were created while the IDs
+-- were still AUTO_INCREMENT columns. Otherwise ddl-auto=update creates the sequences starting at 1,
+-- and new rows get IDs that already exist.
+--   mariadb -u root -p spring-2025-demo-3-rest < src/main/resources/db/seed-sequences.sql
+--
+-- Hibernate's pooled optimizer treats each value it reads as the top of a block of 50 IDs,
+-- so a sequence starting at MAX(id) + 51 hands out IDs from MAX(id) + 2 upwards.
+-- The script can be run again at any time the application is stopped; it never moves a sequence below the table.
+
+SET @start = (SELECT COALESCE(MAX(id), 0) + 51 FROM `user`);
+SET @ddl = CONCAT('CREATE OR REPLACE SEQUENCE user_seq START WITH ', @start, ' INCREMENT BY 50');
+PREPARE seed FROM @ddl;
+EXECUTE seed;
+DEALLOCATE PREPARE seed;
+
+SET @start = (SELECT COALESCE(MAX(id), 0) + 51 FROM home);
+SET @ddl = CONCAT('CREATE OR REPLACE SEQUENCE home_seq START WITH ', @start, ' INCREMENT BY 50');
+PREPARE seed FROM @ddl;
+EXECUTE seed;
+DEALLOCATE PREPARE seed;
+
+SET @start = (SELECT COALESCE(MAX(id), 0) + 51 FROM auto);
+SET @ddl = CONCAT('CREATE OR REPLACE SEQUENCE auto_seq START WITH ', @start, ' INCREMENT BY 50');
+PREPARE seed FROM @ddl;
+EXECUTE seed;
+DEALLOCATE PREPARE seed;
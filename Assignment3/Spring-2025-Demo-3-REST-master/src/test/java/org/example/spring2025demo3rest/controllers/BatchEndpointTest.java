@@ -0,0 +1,178 @@
+package org.example.spring2025demo3rest.controllers;
+
+import org.example.spring2025demo3rest.dataaccess.AutoRepository;
+import org.example.spring2025demo3rest.dataaccess.HomeRepository;
+import org.example.spring2025demo3rest.dataaccess.UserRepository;
+import org.example.spring2025demo3rest.pojos.Auto;
+import org.example.spring2025demo3rest.pojos.Home;
+import org.example.spring2025demo3rest.pojos.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks the batch create endpoints for homes and autos: the size cap, the unknown user,
+ * that IDs sent by the client are ignored, and that the response lists the created rows as summaries
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class BatchEndpointTest {
+
+    private static final String HOMES = RESTNouns.VERSION_1 + RESTNouns.USER + "/{id}" + RESTNouns.HOME + RESTNouns.BATCH;
+    private static final String AUTOS = RESTNouns.VERSION_1 + RESTNouns.USER + "/{id}" + RESTNouns.AUTO + RESTNouns.BATCH;
+    private static final int CLIENT_ID = 999999;
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private UserRepository userRepository;
+    @Autowired private HomeRepository homeRepository;
+    @Autowired private AutoRepository autoRepository;
+
+    private Integer userId;
+
+    @BeforeEach
+    void createUser() {
+        User user = new User();
+        user.setName("Batch Customer");
+        user.setEmail("batch@example.com");
+        userId = userRepository.save(user).getId();
+    }
+
+    @Test
+    void createsHomesAndReturnsTheirSummaries() throws Exception {
+        String homes = "[" +
+                "{\"id\": " + CLIENT_ID + ", \"dateBuilt\": \"1990-05-01\", \"value\": 250000, \"heatingType\": \"OIL_HEATING\", \"location\": \"URBAN\"}," +
+                "{\"dateBuilt\": \"2015-10-20\", \"value\": 400000, \"heatingType\": \"WOOD_HEATING\", \"location\": \"RURAL\"}" +
+                "]";
+
+        mockMvc.perform(post(HOMES, userId).contentType(MediaType.APPLICATION_JSON).content(homes))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[*].id", not(hasItem(CLIENT_ID))))
+                .andExpect(jsonPath("$[0].id", not(nullValue())))
+                .andExpect(jsonPath("$[0].dateBuilt").value("1990-05-01"))
+                .andExpect(jsonPath("$[0].value").value(250000))
+                .andExpect(jsonPath("$[0].heatingType").value("OIL_HEATING"))
+                .andExpect(jsonPath("$[0].location").value("URBAN"))
+                .andExpect(jsonPath("$[0].user").doesNotExist())
+                .andExpect(jsonPath("$[1].dateBuilt").value("2015-10-20"))
+                .andExpect(jsonPath("$[1].value").value(400000))
+                .andExpect(jsonPath("$[1].heatingType").value("WOOD_HEATING"))
+                .andExpect(jsonPath("$[1].location").value("RURAL"));
+
+        assertEquals(2, homeRepository.countByUserId(userId));
+        assertFalse(homeRepository.existsById(CLIENT_ID));
+    }
+
+    @Test
+    void createsAutosAndReturnsTheirSummaries() throws Exception {
+        String autos = "[" +
+                "{\"id\": " + CLIENT_ID + ", \"make\": \"Ford\", \"model\": \"Focus\", \"year\": 2010}," +
+                "{\"make\": \"Honda\", \"model\": \"Civic\", \"year\": 2018}" +
+                "]";
+
+        mockMvc.perform(post(AUTOS, userId).contentType(MediaType.APPLICATION_JSON).content(autos))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[*].id", not(hasItem(CLIENT_ID))))
+                .andExpect(jsonPath("$[0].id", not(nullValue())))
+                .andExpect(jsonPath("$[0].make").value("Ford"))
+                .andExpect(jsonPath("$[0].model").value("Focus"))
+                .andExpect(jsonPath("$[0].year").value(2010))
+                .andExpect(jsonPath("$[0].user").doesNotExist())
+                .andExpect(jsonPath("$[1].make").value("Honda"))
+                .andExpect(jsonPath("$[1].model").value("Civic"))
+                .andExpect(jsonPath("$[1].year").value(2018));
+
+        assertEquals(2, autoRepository.countByUserId(userId));
+        assertFalse(autoRepository.existsById(CLIENT_ID));
+    }
+
+    @Test
+    void aClientIdDoesNotOverwriteAnExistingRow() throws Exception {
+        Auto existing = new Auto();
+        existing.setMake("Existing");
+        existing.setModel("Car");
+        existing.setYear(2000);
+        existing.setUser(userRepository.findById(userId).orElseThrow());
+        Integer existingId = autoRepository.save(existing).getId();
+
+        String autos = "[{\"id\": " + existingId + ", \"make\": \"Other\", \"model\": \"Car\", \"year\": 2020}]";
+        mockMvc.perform(post(AUTOS, userId).contentType(MediaType.APPLICATION_JSON).content(autos))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", not(existingId)));
+
+        assertEquals("Existing", autoRepository.findById(existingId).orElseThrow().getMake());
+        assertEquals(2, autoRepository.countByUserId(userId));
+    }
+
+    @Test
+    void moreThanAThousandHomesIsABadRequest() throws Exception {
+        mockMvc.perform(post(HOMES, userId).contentType(MediaType.APPLICATION_JSON).content(homes(1001)))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(0, homeRepository.countByUserId(userId));
+    }
+
+    @Test
+    void aThousandHomesAreAccepted() throws Exception {
+        mockMvc.perform(post(HOMES, userId).contentType(MediaType.APPLICATION_JSON).content(homes(1000)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1000)));
+
+        assertEquals(1000, homeRepository.countByUserId(userId));
+    }
+
+    @Test
+    void moreThanAThousandAutosIsABadRequest() throws Exception {
+        mockMvc.perform(post(AUTOS, userId).contentType(MediaType.APPLICATION_JSON).content(autos(1001)))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(0, autoRepository.countByUserId(userId));
+    }
+
+    @Test
+    void unknownUserIsNotFound() throws Exception {
+        Integer unknownUserId = -1;
+
+        mockMvc.perform(post(HOMES, unknownUserId).contentType(MediaType.APPLICATION_JSON).content(homes(2)))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post(AUTOS, unknownUserId).contentType(MediaType.APPLICATION_JSON).content(autos(2)))
+                .andExpect(status().isNotFound());
+    }
+
+    private static String homes(int count) {
+        List<String> homes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            homes.add("{\"dateBuilt\": \"2000-01-01\", \"value\": " + (100000 + i) + ", \"heatingType\": \"" + Home.HeatingType.values()[i % 3]
+                    + "\", \"location\": \"" + Home.Location.values()[i % 2] + "\"}");
+        }
+        return "[" + String.join(",", homes) + "]";
+    }
+
+    private static String autos(int count) {
+        List<String> autos = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            autos.add("{\"make\": \"Make" + i + "\", \"model\": \"Model" + i + "\", \"year\": 2020}");
+        }
+        return "[" + String.join(",", autos) + "]";
+    }
+}
@@ -0,0 +1,109 @@
+package org.example.spring2025demo3rest.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks the paging parameter rules and the next cursor of numbered and keyset pages
+ */
+class PagingTest {
+
+    private static final Set<String> SORTABLE = Set.of("id", "value");
+    private static final Function<Integer, Integer> ID = Function.identity();
+
+    @Test
+    void checkSortAddsTheIdAsTheLastSortKey() {
+        Pageable checked = Paging.checkSort(PageRequest.of(2, 10, Sort.by(Sort.Direction.DESC, "value")), SORTABLE);
+
+        assertEquals(2, checked.getPageNumber());
+        assertEquals(10, checked.getPageSize());
+        assertEquals(Sort.by(Sort.Order.desc("value"), Sort.Order.asc("id")), checked.getSort());
+    }
+
+    @Test
+    void checkSortSortsAnUnsortedPageById() {
+        Pageable checked = Paging.checkSort(PageRequest.of(0, 10), SORTABLE);
+
+        assertEquals(Sort.by("id"), checked.getSort());
+    }
+
+    @Test
+    void checkSortKeepsAnIdOrderThatWasAskedFor() {
+        Pageable checked = Paging.checkSort(PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "id")), SORTABLE);
+
+        assertEquals(Sort.by(Sort.Direction.DESC, "id"), checked.getSort());
+    }
+
+    @Test
+    void checkSortRejectsOtherProperties() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> Paging.checkSort(PageRequest.of(0, 10, Sort.by("user")), SORTABLE));
+
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+
+    @Test
+    void checkKeysetAllowsOnlyASize() {
+        assertDoesNotThrow(() -> Paging.checkKeyset(PageRequest.of(0, 25)));
+
+        ResponseStatusException withPage = assertThrows(ResponseStatusException.class,
+                () -> Paging.checkKeyset(PageRequest.of(1, 25)));
+        ResponseStatusException withSort = assertThrows(ResponseStatusException.class,
+                () -> Paging.checkKeyset(PageRequest.of(0, 25, Sort.by("id"))));
+        assertEquals(HttpStatus.BAD_REQUEST, withPage.getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, withSort.getStatusCode());
+    }
+
+    @Test
+    void numberedPageInIdOrderGivesTheLastIdAsNext() {
+        Pageable pageable = Paging.checkSort(PageRequest.of(0, 3), SORTABLE);
+
+        PagedResponse<Integer> response = PagedResponse.of(new PageImpl<>(List.of(4, 7, 9), pageable, 10), ID);
+
+        assertEquals(9, response.getNext());
+        assertEquals(4, response.getTotalPages());
+        assertEquals("id: ASC", response.getSort());
+    }
+
+    @Test
+    void numberedPageInAnyOtherOrderHasNoNext() {
+        Pageable byValue = Paging.checkSort(PageRequest.of(0, 3, Sort.by("value")), SORTABLE);
+        Pageable byIdDescending = Paging.checkSort(PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "id")), SORTABLE);
+
+        assertNull(PagedResponse.of(new PageImpl<>(List.of(4, 7, 9), byValue, 10), ID).getNext());
+        assertNull(PagedResponse.of(new PageImpl<>(List.of(9, 7, 4), byIdDescending, 10), ID).getNext());
+    }
+
+    @Test
+    void lastNumberedPageHasNoNext() {
+        Pageable pageable = Paging.checkSort(PageRequest.of(3, 3), SORTABLE);
+
+        assertNull(PagedResponse.of(new PageImpl<>(List.of(10), pageable, 10), ID).getNext());
+    }
+
+    @Test
+    void keysetPageGivesNextOnlyWhenFull() {
+        PagedResponse<Integer> full = PagedResponse.ofKeyset(List.of(4, 7, 9), 3, ID);
+        PagedResponse<Integer> partial = PagedResponse.ofKeyset(List.of(10), 3, ID);
+
+        assertEquals(9, full.getNext());
+        assertNull(full.getTotalElements());
+        assertEquals("id: ASC", full.getSort());
+        assertNull(partial.getNext());
+        assertNull(PagedResponse.ofKeyset(List.<Integer>of(), 3, ID).getNext());
+    }
+}
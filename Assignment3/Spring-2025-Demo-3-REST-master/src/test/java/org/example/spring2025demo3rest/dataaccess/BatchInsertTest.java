@@ -0,0 +1,99 @@
+package org.example.spring2025demo3rest.dataaccess;
+
+import jakarta.persistence.EntityManager;
+import org.example.spring2025demo3rest.pojos.Auto;
+import org.example.spring2025demo3rest.pojos.Home;
+import org.example.spring2025demo3rest.pojos.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Inserts many homes and autos at once and checks that the inserts go out in JDBC batches,
+ * and that IDs come from the sequence 50 at a time. BatchInsertBenchmark in the benchmarks module measures the rows per second
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class BatchInsertTest {
+
+    private static final int ROWS = 10000;
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired private EntityManager entityManager;
+    @Autowired private HomeRepository homeRepository;
+    @Autowired private AutoRepository autoRepository;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void createUser() {
+        user = new User();
+        user.setName("Fleet Customer");
+        user.setEmail("fleet@example.com");
+        entityManager.persist(user);
+        entityManager.flush();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void autosAreInsertedInBatches() {
+        List<Auto> autos = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Auto auto = new Auto();
+            auto.setMake("Make" + i % 20);
+            auto.setModel("Model" + i);
+            auto.setYear(1990 + i % 35);
+            auto.setUser(user);
+            autos.add(auto);
+        }
+
+        autoRepository.saveAll(autos);
+        entityManager.flush();
+
+        assertEquals(ROWS, autoRepository.countByUserId(user.getId()));
+        assertBatched();
+    }
+
+    @Test
+    void homesAreInsertedInBatches() {
+        List<Home> homes = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Home home = new Home();
+            home.setDateBuilt(LocalDate.of(1950 + i % 70, 1 + i % 12, 1));
+            home.setHeatingType(Home.HeatingType.values()[i % 3]);
+            home.setLocation(Home.Location.values()[i % 2]);
+            home.setValue(100000 + i);
+            home.setUser(user);
+            homes.add(home);
+        }
+
+        homeRepository.saveAll(homes);
+        entityManager.flush();
+
+        assertEquals(ROWS, homeRepository.countByUserId(user.getId()));
+        assertBatched();
+    }
+
+    /**
+     * One insert statement per batch and one sequence call per 50 IDs, instead of one insert per row
+     */
+    private void assertBatched() {
+        long expected = 2L * ROWS / BATCH_SIZE;
+        assertTrue(statistics.getPrepareStatementCount() <= expected + 2,
+                "Expected about " + expected + " statements but there were " + statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.spring2025demo3rest.dataaccess;
+
+import jakarta.persistence.EntityManager;
+import org.example.spring2025demo3rest.pojos.Auto;
+import org.example.spring2025demo3rest.pojos.Home;
+import org.example.spring2025demo3rest.pojos.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that homes and autos are updated and deleted in one statement, and only by the user that owns them
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class OwnedWriteTest {
+
+    @Autowired private EntityManager entityManager;
+    @Autowired private HomeRepository homeRepository;
+    @Autowired private AutoRepository autoRepository;
+
+    private Statistics statistics;
+    private Integer ownerId;
+    private Integer otherId;
+    private Integer homeId;
+    private Integer autoId;
+
+    @BeforeEach
+    void createUsersWithAHomeAndAnAuto() {
+        User owner = createUser("Owner");
+        User other = createUser("Other");
+
+        Home home = new Home();
+        home.setDateBuilt(LocalDate.of(1990, 1, 1));
+        home.setHeatingType(Home.HeatingType.OIL_HEATING);
+        home.setLocation(Home.Location.URBAN);
+        home.setValue(100000);
+        home.setUser(owner);
+        entityManager.persist(home);
+
+        Auto auto = new Auto();
+        auto.setMake("Ford");
+        auto.setModel("Focus");
+        auto.setYear(2010);
+        auto.setUser(owner);
+        entityManager.persist(auto);
+
+        entityManager.flush();
+        entityManager.clear();
+        ownerId = owner.getId();
+        otherId = other.getId();
+        homeId = home.getId();
+        autoId = auto.getId();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    private User createUser(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name.toLowerCase() + "@example.com");
+        entityManager.persist(user);
+        return user;
+    }
+
+    @Test
+    void ownerUpdatesHomeInOneStatement() {
+        assertEquals(1, homeRepository.updateByIdAndUserId(homeId, ownerId, LocalDate.of(2000, 6, 1),
+                Home.HeatingType.WOOD_HEATING, Home.Location.RURAL, 250000));
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        entityManager.clear();
+        Home home = homeRepository.findById(homeId).orElseThrow();
+        assertEquals(250000, home.getValue());
+        assertEquals(Home.HeatingType.WOOD_HEATING, home.getHeatingType());
+        assertEquals(Home.Location.RURAL, home.getLocation());
+    }
+
+    @Test
+    void otherUserCannotUpdateOrDeleteHome() {
+        assertEquals(0, homeRepository.updateByIdAndUserId(homeId, otherId, LocalDate.of(2000, 6, 1),
+                Home.HeatingType.WOOD_HEATING, Home.Location.RURAL, 1));
+        assertEquals(0, homeRepository.deleteByIdAndUserId(homeId, otherId));
+        assertTrue(homeRepository.existsById(homeId));
+    }
+
+    @Test
+    void ownerDeletesAutoInOneStatement() {
+        assertEquals(1, autoRepository.deleteByIdAndUserId(autoId, ownerId));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertFalse(autoRepository.existsById(autoId));
+    }
+
+    @Test
+    void otherUserCannotUpdateAuto() {
+        assertEquals(0, autoRepository.updateByIdAndUserId(autoId, otherId, "Tesla", "Model 3", 2024));
+        entityManager.clear();
+        assertEquals("Ford", autoRepository.findById(autoId).orElseThrow().getMake());
+    }
+
+    @Test
+    void missingAutoIsNeitherUpdatedNorDeleted() {
+        assertEquals(0, autoRepository.updateByIdAndUserId(autoId + 1000, ownerId, "Tesla", "Model 3", 2024));
+        assertEquals(0, autoRepository.deleteByIdAndUserId(autoId + 1000, ownerId));
+    }
+}
@@ -0,0 +1,133 @@
+package org.example.spring2025demo3rest.dataaccess;
+
+import jakarta.persistence.EntityManager;
+import org.example.spring2025demo3rest.controllers.Paging;
+import org.example.spring2025demo3rest.pojos.Auto;
+import org.example.spring2025demo3rest.pojos.AutoSummary;
+import org.example.spring2025demo3rest.pojos.Home;
+import org.example.spring2025demo3rest.pojos.HomeSummary;
+import org.example.spring2025demo3rest.pojos.User;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Checks that the queries behind the home and auto collection endpoints take a fixed number of statements,
+ * however many rows a page holds, and load no entities at all
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class OwnerFetchTest {
+
+    private static final int COUNT = 1000;
+
+    @Autowired private EntityManager entityManager;
+    @Autowired private HomeRepository homeRepository;
+    @Autowired private AutoRepository autoRepository;
+
+    private Statistics statistics;
+    private Integer userId;
+
+    @BeforeEach
+    void createUserWithHomesAndAutos() {
+        User user = new User();
+        user.setName("Test Testerson");
+        user.setEmail("tester@example.com");
+        entityManager.persist(user);
+        for (int i = 0; i < COUNT; i++) {
+            Home home = new Home();
+            home.setDateBuilt(LocalDate.of(1950 + i % 70, 1, 1));
+            home.setHeatingType(Home.HeatingType.values()[i % 3]);
+            home.setLocation(Home.Location.values()[i % 2]);
+            home.setValue(100000 + i);
+            home.setUser(user);
+            entityManager.persist(home);
+
+            Auto auto = new Auto();
+            auto.setMake("Make" + i);
+            auto.setModel("Model" + i);
+            auto.setYear(1990 + i % 35);
+            auto.setUser(user);
+            entityManager.persist(auto);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        userId = user.getId();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void homePageTakesOneStatementPlusTheCount() {
+        Pageable pageable = Paging.checkSort(PageRequest.of(3, 50, Sort.by("value")), Set.of("value"));
+        Page<HomeSummary> page = homeRepository.findSummariesByUserId(userId, pageable);
+        assertEquals(50, page.getContent().size());
+        assertEquals(COUNT, page.getTotalElements());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void allHomesOnOnePageTakeOneStatementPlusTheCount() {
+        Pageable pageable = Paging.checkSort(PageRequest.of(0, COUNT), Set.of());
+        Page<HomeSummary> page = homeRepository.findSummariesByUserId(userId, pageable);
+        assertEquals(COUNT, page.getContent().size());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void homeKeysetPageTakesOneStatement() {
+        List<HomeSummary> homes = homeRepository.findSummariesByUserIdAndIdGreaterThanOrderByIdAsc(userId, 0, Limit.of(COUNT));
+        assertEquals(COUNT, homes.size());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void autoPageTakesOneStatementPlusTheCount() {
+        Pageable pageable = Paging.checkSort(PageRequest.of(3, 50, Sort.by("year")), Set.of("year"));
+        Page<AutoSummary> page = autoRepository.findSummariesByUserId(userId, pageable);
+        assertEquals(50, page.getContent().size());
+        assertEquals(COUNT, page.getTotalElements());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void autoKeysetPageTakesOneStatement() {
+        List<AutoSummary> autos = autoRepository.findSummariesByUserIdAndIdGreaterThanOrderByIdAsc(userId, 0, Limit.of(50));
+        assertEquals(50, autos.size());
+        assertEquals("Make0", autos.get(0).make());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findByIdDoesNotLoadTheUser() {
+        Home home = homeRepository.findAll().iterator().next();
+        statistics.clear();
+        entityManager.clear();
+        Home found = homeRepository.findById(home.getId()).orElseThrow();
+        assertFalse(Hibernate.isInitialized(found.getUser()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
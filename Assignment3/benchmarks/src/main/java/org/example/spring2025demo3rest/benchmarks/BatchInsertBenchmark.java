@@ -0,0 +1,137 @@
+package org.example.spring2025demo3rest.benchmarks;
+
+import org.example.spring2025demo3rest.Spring2025Demo3RestApplication;
+import org.example.spring2025demo3rest.dataaccess.AutoRepository;
+import org.example.spring2025demo3rest.dataaccess.HomeRepository;
+import org.example.spring2025demo3rest.dataaccess.UserRepository;
+import org.example.spring2025demo3rest.pojos.Auto;
+import org.example.spring2025demo3rest.pojos.Home;
+import org.example.spring2025demo3rest.pojos.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many homes and autos per second the repositories insert with saveAll, the way the batch endpoints do.
+ * Runs against an in-memory H2 database in MariaDB mode, with JDBC batching off (batchSize 1) and as the application
+ * configures it (batchSize 50). Each invocation inserts ROWS rows in one transaction, and the score is rows per second.
+ * H2 runs in the same process, so batching saves less here than against a MariaDB server over the network.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchInsertBenchmark {
+    private static final int ROWS = 1000;
+
+    /**
+     * The application context, started without the web server, and the user the rows belong to.
+     */
+    @State(Scope.Benchmark)
+    public static class Application {
+        @Param({"1", "50"})
+        public int batchSize;
+
+        ConfigurableApplicationContext context;
+        TransactionTemplate transaction;
+        JdbcTemplate jdbc;
+        HomeRepository homeRepository;
+        AutoRepository autoRepository;
+        User user;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = new SpringApplicationBuilder(Spring2025Demo3RestApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .properties(
+                            "spring.datasource.url=jdbc:h2:mem:batch-insert-benchmark;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE,YEAR",
+                            "spring.datasource.username=sa",
+                            "spring.datasource.password=",
+                            "spring.jpa.hibernate.ddl-auto=create-drop",
+                            "spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                            "spring.jpa.properties.hibernate.order_inserts=true",
+                            "logging.level.root=WARN")
+                    .run();
+            transaction = context.getBean(TransactionTemplate.class);
+            jdbc = context.getBean(JdbcTemplate.class);
+            homeRepository = context.getBean(HomeRepository.class);
+            autoRepository = context.getBean(AutoRepository.class);
+
+            User newUser = new User();
+            newUser.setName("Fleet Customer");
+            newUser.setEmail("fleet@example.com");
+            user = context.getBean(UserRepository.class).save(newUser);
+        }
+
+        /**
+         * Empties the tables between iterations, so every iteration inserts into tables of the same size.
+         */
+        @TearDown(Level.Iteration)
+        public void deleteRows() {
+            jdbc.update("delete from home");
+            jdbc.update("delete from auto");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Home> insertHomes(Application application) {
+        List<Home> homes = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Home home = new Home();
+            home.setDateBuilt(LocalDate.of(1950 + i % 70, 1 + i % 12, 1));
+            home.setHeatingType(Home.HeatingType.values()[i % 3]);
+            home.setLocation(Home.Location.values()[i % 2]);
+            home.setValue(100000 + i);
+            home.setUser(application.user);
+            homes.add(home);
+        }
+        return application.transaction.execute(status -> {
+            List<Home> saved = new ArrayList<>(ROWS);
+            application.homeRepository.saveAll(homes).forEach(saved::add);
+            return saved;
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Auto> insertAutos(Application application) {
+        List<Auto> autos = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Auto auto = new Auto();
+            auto.setMake("Make" + i % 20);
+            auto.setModel("Model" + i);
+            auto.setYear(1990 + i % 35);
+            auto.setUser(application.user);
+            autos.add(auto);
+        }
+        return application.transaction.execute(status -> application.autoRepository.saveAll(autos));
+    }
+}